@@ -0,0 +1,97 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.ConcurrencyDemoApplication;
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.ProductCodeFilter;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试使用的Spring上下文
+ * 不启动Web服务器，关闭SQL日志；Redis指向不可用端口，RedisService 始终走内存存储；
+ * 默认屏蔽业务代码的控制台输出（-Dbench.quiet=false 保留），避免测到控制台I/O；
+ * 经过JPA的路径JIT预热较慢，预热时间不宜缩短
+ */
+final class BenchmarkContext {
+
+    private static final String[] DEFAULT_PROPERTIES = {
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.com.example.concurrency=WARN",
+            "logging.level.org.hibernate.SQL=WARN",
+            "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "spring.redis.port=1",
+            "spring.redis.timeout=100"
+    };
+
+    private static final String INSERT_SQL =
+            "INSERT INTO seckill_products (product_code, product_name, total_stock, available_stock, seckill_price, " +
+            "original_price, start_time, end_time, active, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, 0, ?, ?)";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        if (Boolean.parseBoolean(System.getProperty("bench.quiet", "true"))) {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+        }
+        List<String> all = new ArrayList<>(Arrays.asList(DEFAULT_PROPERTIES));
+        all.addAll(Arrays.asList(properties));
+        return new SpringApplicationBuilder(ConcurrencyDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(all.toArray(new String[0]))
+                .run();
+    }
+
+    /**
+     * 保存一个库存足够整轮测试使用的商品
+     */
+    static SeckillProduct saveProduct(ConfigurableApplicationContext context, String productCode, int stock) {
+        return context.getBean(SeckillProductRepository.class).save(new SeckillProduct(
+                productCode, "基准测试商品", stock, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(1)));
+    }
+
+    /**
+     * 批量写入 size 个商品并重建商品编码过滤器，返回商品编码
+     * 直接用JDBC批量插入，避免逐个触发商品变更事件和过滤器重建
+     */
+    static List<String> seedCatalog(ConfigurableApplicationContext context, int size) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp start = Timestamp.valueOf(LocalDateTime.now().minusMinutes(1));
+        Timestamp end = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+        List<String> codes = new ArrayList<>(size);
+        List<Object[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String code = "BENCH_" + i;
+            codes.add(code);
+            rows.add(new Object[]{code, "基准测试商品" + i, 1000, 1000, 100, 200, start, end, now, now});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(INSERT_SQL, rows);
+        context.getBean(ProductCodeFilter.class).rebuild();
+        return codes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.concurrency.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试入口
+ * 按 -Djmh.threads 指定的每个线程数各运行一轮，全部结果合并写入 -Djmh.output 指定的JSON文件，
+ * 便于在不同提交之间对比；其余参数按JMH命令行解析（如 -p catalogSize=100、-f 1、基准名正则）
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String output = System.getProperty("jmh.output", "target/jmh-result.json");
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : System.getProperty("jmh.threads", "1,4,16").split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads.trim()));
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(BenchmarkRunner.class.getPackage().getName() + "\\..*");
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        File file = new File(output);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(file), true, "UTF-8")) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("基准测试结果已写入: " + file.getAbsolutePath());
+    }
+}
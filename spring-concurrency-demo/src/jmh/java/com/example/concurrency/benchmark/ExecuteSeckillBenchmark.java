@@ -0,0 +1,60 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * executeSeckill 基准测试（H2，库存扣减 + 订单写入，每次调用一个新用户）
+ * 按库存扣减策略分别测试，乐观锁策略在多线程下会出现版本冲突和重试，悲观锁策略串行持有行锁
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecuteSeckillBenchmark {
+
+    @Param({"optimistic", "atomic", "pessimistic", "group-commit"})
+    private String strategy;
+
+    private ConfigurableApplicationContext context;
+    private SeckillService seckillService;
+    private SeckillProduct product;
+    private final AtomicLong userIds = new AtomicLong(1_000_000L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("seckill.stock.strategy=" + strategy);
+        seckillService = context.getBean(SeckillService.class);
+        product = BenchmarkContext.saveProduct(context, "BENCH_EXECUTE", Integer.MAX_VALUE / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SeckillResult executeSeckill() {
+        return seckillService.executeSeckill(userIds.incrementAndGet(), product, 1);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 下单引擎对比：classic (用户锁 + 乐观锁扣减) 与 ring (分片环形缓冲单线程判定)
+ * 所有线程抢购同一商品，每次调用一个新用户；SampleTime 模式给出尾延迟分布
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderEngineBenchmark {
+
+    @Param({"classic", "ring"})
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+    private SeckillService seckillService;
+    private final AtomicLong userIds = new AtomicLong(2_000_000L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("seckill.engine.mode=" + engine);
+        seckillService = context.getBean(SeckillService.class);
+        BenchmarkContext.saveProduct(context, "BENCH_ENGINE", Integer.MAX_VALUE / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SeckillResult doSeckill() {
+        return seckillService.doSeckill(userIds.incrementAndGet(), "BENCH_ENGINE", 1);
+    }
+}
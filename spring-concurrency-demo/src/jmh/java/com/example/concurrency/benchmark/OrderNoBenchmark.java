@@ -0,0 +1,44 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.service.OrderIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成基准测试 (SeckillService#generateOrderNo 委托给 OrderIdGenerator)
+ * segmentSize 为每线程预取的序列数，1 表示每次都竞争全局序列
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderNoBenchmark {
+
+    @Param({"1", "16"})
+    private int segmentSize;
+
+    private OrderIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new OrderIdGenerator(1, segmentSize, System::currentTimeMillis);
+    }
+
+    @Benchmark
+    public String nextOrderNo() {
+        return generator.nextOrderNo();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.service.SeckillService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getProductsByCodes 基准测试
+ * catalogSize 为商品总数，batchSize 为单次查询的商品数；查询批次预先随机生成，不计入测量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductBatchBenchmark {
+
+    private static final int BATCHES = 1024;
+
+    @Param({"100", "10000"})
+    private int catalogSize;
+
+    @Param({"20"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private SeckillService seckillService;
+    private List<List<String>> batches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        seckillService = context.getBean(SeckillService.class);
+        List<String> codes = BenchmarkContext.seedCatalog(context, catalogSize);
+        Random random = new Random(42);
+        batches = new ArrayList<>(BATCHES);
+        for (int i = 0; i < BATCHES; i++) {
+            List<String> batch = new ArrayList<>(batchSize);
+            for (int j = 0; j < batchSize; j++) {
+                batch.add(codes.get(random.nextInt(codes.size())));
+            }
+            batches.add(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SeckillProduct> getProductsByCodes() {
+        return seckillService.getProductsByCodes(batches.get(ThreadLocalRandom.current().nextInt(BATCHES)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.service.RedisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisService 内存存储模式基准测试
+ * keySpace 为键的数量，键越少线程间对同一条目的竞争越多
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RedisServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int keySpace;
+
+    private ConfigurableApplicationContext context;
+    private RedisService redisService;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("seckill.memory-store.max-entries=" + (keySpace * 2));
+        redisService = context.getBean(RedisService.class);
+        keys = new String[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            keys[i] = "bench:key:" + i;
+            redisService.set(keys[i], String.valueOf(i), 3600);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return redisService.get(randomKey());
+    }
+
+    @Benchmark
+    public void set() {
+        redisService.set(randomKey(), "value", 3600);
+    }
+
+    @Benchmark
+    public long incr() {
+        return redisService.incr(randomKey() + ":counter", 1);
+    }
+
+    /**
+     * 加锁后立即释放，锁键不会在测试过程中堆积
+     */
+    @Benchmark
+    public boolean tryLock() {
+        String lockKey = randomKey() + ":lock";
+        String lockValue = String.valueOf(Thread.currentThread().getId());
+        boolean locked = redisService.tryLock(lockKey, lockValue, 10);
+        if (locked) {
+            redisService.releaseLock(lockKey, lockValue);
+        }
+        return locked;
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keySpace)];
+    }
+}
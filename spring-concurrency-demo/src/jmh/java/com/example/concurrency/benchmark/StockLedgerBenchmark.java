@@ -0,0 +1,59 @@
+package com.example.concurrency.benchmark;
+
+import com.example.concurrency.service.StockLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 库存账本预占基准测试，与 ExecuteSeckillBenchmark 的数据库扣减路径对比
+ * 每次预占后立即归还，库存保持不变；stripes 为账本分段数，1 表示所有线程竞争同一个计数器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockLedgerBenchmark {
+
+    @Param({"1", "8"})
+    private int stripes;
+
+    private ConfigurableApplicationContext context;
+    private StockLedger stockLedger;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("seckill.ledger.stripes=" + stripes);
+        stockLedger = context.getBean(StockLedger.class);
+        stockLedger.warmUp("BENCH_LEDGER", 1_000_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean reserved = stockLedger.tryReserve("BENCH_LEDGER", 1);
+        if (reserved) {
+            stockLedger.release("BENCH_LEDGER", 1);
+        }
+        return reserved;
+    }
+}
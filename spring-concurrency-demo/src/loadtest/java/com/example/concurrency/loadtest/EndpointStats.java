@@ -0,0 +1,51 @@
+package com.example.concurrency.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的压测统计（微秒）
+ * latency 从计划发送时间算起，包含请求在发送队列中的等待，不受协调遗漏影响；
+ * service 从实际发出请求算起，只反映服务端和网络耗时，两者差距越大说明压测端或服务端已跟不上目标速率
+ */
+final class EndpointStats {
+
+    private final String name;
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final Histogram service = new ConcurrentHistogram(3);
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param status HTTP状态码，连接失败或超时为 "error"
+     */
+    void record(long intendedNanos, long sentNanos, long finishedNanos, String status) {
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(finishedNanos - intendedNanos));
+        service.recordValue(TimeUnit.NANOSECONDS.toMicros(finishedNanos - sentNanos));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    long count() {
+        return latency.getTotalCount();
+    }
+
+    Map<String, Long> statusCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, adder) -> counts.put(status, adder.sum()));
+        return counts;
+    }
+
+    // Getters
+    String getName() { return name; }
+    Histogram getLatency() { return latency; }
+    Histogram getService() { return service; }
+}
@@ -0,0 +1,157 @@
+package com.example.concurrency.loadtest;
+
+import com.example.concurrency.loadtest.Scenario.Endpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 内置压测工具（开放模型）
+ * 调度线程按目标速率计算每个请求的计划发送时间并提交到发送线程池，不等待前一个请求返回；
+ * 发送线程不够用时请求在队列中排队，排队时间计入延迟，服务端变慢时不会像闭环压测那样自动降低发送速率
+ */
+public class LoadGenerator {
+
+    private final Scenario scenario;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    LoadGenerator(Scenario scenario) {
+        this.scenario = scenario;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats(endpoint.key()));
+        }
+    }
+
+    /**
+     * 参数为 key=value 形式，等同于 -Dload.key=value，如 rate=500 duration-s=30 mix=order:1
+     */
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            System.setProperty("load." + arg.substring(0, index), arg.substring(index + 1));
+        }
+        Scenario scenario = new Scenario();
+        // HttpURLConnection 默认每个目标只保留5个空闲长连接
+        System.setProperty("http.maxConnections", String.valueOf(scenario.connections));
+        new LoadGenerator(scenario).run();
+    }
+
+    void run() throws Exception {
+        checkReachable();
+        System.out.println("开始压测: " + scenario.describe());
+
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(scenario.connections, runnable -> {
+            Thread thread = new Thread(runnable, "load-sender-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Random random = new Random();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(scenario.durationSeconds);
+        progress.scheduleAtFixedRate(() -> printProgress(start), 1, 1, TimeUnit.SECONDS);
+
+        long intended = start;
+        while (intended < end) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Endpoint endpoint = scenario.nextEndpoint(random);
+            String path = endpoint.path(scenario.nextUser(random), scenario.nextProduct(random));
+            long scheduledAt = intended;
+            senders.execute(() -> send(endpoint, path, scheduledAt));
+            sent.incrementAndGet();
+            intended += (long) (1e9 / scenario.rateAt(intended - start));
+        }
+        long sendingNanos = System.nanoTime() - start;
+
+        senders.shutdown();
+        if (!senders.awaitTermination(scenario.timeoutMillis * 2L + 10000, TimeUnit.MILLISECONDS)) {
+            System.err.println("仍有请求未完成，强制结束: " + (sent.get() - completed.get()));
+            senders.shutdownNow();
+        }
+        progress.shutdownNow();
+
+        new LoadReport(scenario, stats.values(), sent.get(), sendingNanos).write();
+    }
+
+    private void send(Endpoint endpoint, String path, long intendedNanos) {
+        long sentNanos = System.nanoTime();
+        String status;
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(scenario.baseUrl + path).openConnection();
+            connection.setRequestMethod(endpoint.method());
+            connection.setConnectTimeout(scenario.timeoutMillis);
+            connection.setReadTimeout(scenario.timeoutMillis);
+            int code = connection.getResponseCode();
+            // 读完响应体，连接才能放回长连接缓存复用
+            InputStream body = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            drain(body);
+            status = String.valueOf(code);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            status = "error";
+        }
+        stats.get(endpoint).record(intendedNanos, sentNanos, System.nanoTime(), status);
+        completed.incrementAndGet();
+    }
+
+    private void checkReachable() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(scenario.baseUrl + "/ping").openConnection();
+            connection.setConnectTimeout(scenario.timeoutMillis);
+            connection.setReadTimeout(scenario.timeoutMillis);
+            int code = connection.getResponseCode();
+            drain(code >= 400 ? connection.getErrorStream() : connection.getInputStream());
+        } catch (IOException e) {
+            throw new IllegalStateException("无法连接 " + scenario.baseUrl + "，请先启动应用或设置 -Dload.base-url", e);
+        }
+    }
+
+    private void printProgress(long start) {
+        long elapsed = System.nanoTime() - start;
+        long done = completed.get();
+        System.out.println(String.format("[%3ds] 目标速率: %.0f/s, 已发送: %d, 已完成: %d, 未完成: %d",
+                TimeUnit.NANOSECONDS.toSeconds(elapsed), scenario.rateAt(elapsed), sent.get(), done,
+                sent.get() - done));
+    }
+
+    private static void drain(InputStream body) throws IOException {
+        if (body == null) {
+            return;
+        }
+        try (InputStream in = body) {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {
+                // 丢弃响应内容
+            }
+        }
+    }
+}
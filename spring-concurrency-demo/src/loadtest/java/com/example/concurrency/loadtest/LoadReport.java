@@ -0,0 +1,136 @@
+package com.example.concurrency.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测报告
+ * 控制台输出各接口分位数汇总；输出目录下写入 report.txt（HdrHistogram 完整分位分布，毫秒）
+ * 和 summary.json（场景配置、实际速率、状态码分布和主要分位数），便于不同版本之间对比
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Scenario scenario;
+    private final Collection<EndpointStats> stats;
+    private final long sent;
+    private final long sendingNanos;
+
+    LoadReport(Scenario scenario, Collection<EndpointStats> stats, long sent, long sendingNanos) {
+        this.scenario = scenario;
+        this.stats = stats;
+        this.sent = sent;
+        this.sendingNanos = sendingNanos;
+    }
+
+    void write() throws IOException {
+        File dir = new File(scenario.outputDir);
+        dir.mkdirs();
+
+        printSummary(System.out);
+
+        File report = new File(dir, "report.txt");
+        try (PrintStream out = new PrintStream(new FileOutputStream(report), true, "UTF-8")) {
+            printSummary(out);
+            for (EndpointStats endpoint : stats) {
+                if (endpoint.count() == 0) {
+                    continue;
+                }
+                out.println();
+                out.println("==== " + endpoint.getName() + " 延迟分布（从计划发送时间起，毫秒）====");
+                endpoint.getLatency().outputPercentileDistribution(out, 5, MICROS_PER_MILLI);
+                out.println();
+                out.println("==== " + endpoint.getName() + " 服务耗时分布（从实际发送时间起，毫秒）====");
+                endpoint.getService().outputPercentileDistribution(out, 5, MICROS_PER_MILLI);
+            }
+        }
+
+        File summary = new File(dir, "summary.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(summary, summary());
+
+        System.out.println("压测报告已写入: " + report.getAbsolutePath());
+        System.out.println("压测汇总已写入: " + summary.getAbsolutePath());
+    }
+
+    private void printSummary(PrintStream out) {
+        long completed = 0;
+        for (EndpointStats endpoint : stats) {
+            completed += endpoint.count();
+        }
+        out.println(String.format("已发送: %d, 已完成: %d, 实际发送速率: %.1f/s（目标 %d/s，曲线 %s）",
+                sent, completed, sendRate(), scenario.rate, scenario.ramp));
+        out.println(String.format("%-8s %8s %9s %9s %9s %9s %9s  %s",
+                "接口", "请求数", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "状态码"));
+        for (EndpointStats endpoint : stats) {
+            if (endpoint.count() == 0) {
+                continue;
+            }
+            Histogram latency = endpoint.getLatency();
+            out.println(String.format("%-8s %8d %9.2f %9.2f %9.2f %9.2f %9.2f  %s",
+                    endpoint.getName(), endpoint.count(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()), endpoint.statusCounts()));
+        }
+    }
+
+    private Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", scenario.describe());
+        summary.put("sent", sent);
+        summary.put("sendingSeconds", TimeUnit.NANOSECONDS.toMillis(sendingNanos) / 1000.0);
+        summary.put("sendRate", sendRate());
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats endpoint : stats) {
+            if (endpoint.count() == 0) {
+                continue;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("endpoint", endpoint.getName());
+            item.put("count", endpoint.count());
+            item.put("statuses", endpoint.statusCounts());
+            item.put("latencyMs", percentiles(endpoint.getLatency()));
+            item.put("serviceTimeMs", percentiles(endpoint.getService()));
+            endpoints.add(item);
+        }
+        summary.put("endpoints", endpoints);
+        return summary;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mean", round(histogram.getMean() / MICROS_PER_MILLI));
+        for (double percentile : PERCENTILES) {
+            values.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile)), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        values.put("max", millis(histogram.getMaxValue()));
+        return values;
+    }
+
+    private double sendRate() {
+        return sendingNanos > 0 ? round(sent * 1e9 / sendingNanos) : 0;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / MICROS_PER_MILLI);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.concurrency.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 压测场景配置，全部通过 -Dload.* 系统属性指定
+ * 请求按目标速率匀速发出（开放模型），速率曲线由 ramp 决定：
+ * constant - 全程目标速率；linear - ramp-s 秒内从0线性升到目标速率；step - ramp-s 秒内分 steps 级阶梯上升
+ */
+final class Scenario {
+
+    enum Endpoint {
+        ORDER("order", "POST"),
+        ASYNC("async", "POST"),
+        PRODUCT("product", "GET"),
+        PING("ping", "GET");
+
+        private final String key;
+        private final String method;
+
+        Endpoint(String key, String method) {
+            this.key = key;
+            this.method = method;
+        }
+
+        String key() {
+            return key;
+        }
+
+        String method() {
+            return method;
+        }
+
+        String path(long userId, String productCode) {
+            switch (this) {
+                case ORDER:
+                    return "/order?userId=" + userId + "&productCode=" + productCode + "&quantity=1";
+                case ASYNC:
+                    return "/order/async?userId=" + userId + "&productCode=" + productCode + "&quantity=1";
+                case PRODUCT:
+                    return "/product/" + productCode;
+                default:
+                    return "/ping";
+            }
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("未知的压测接口: " + key + "（可选 order / async / product / ping）");
+        }
+    }
+
+    final String baseUrl = property("load.base-url", "http://localhost:8080/api/v1/seckill");
+    final int rate = Integer.parseInt(property("load.rate", "200"));
+    final int durationSeconds = Integer.parseInt(property("load.duration-s", "60"));
+    final String ramp = property("load.ramp", "constant");
+    final int rampSeconds = Integer.parseInt(property("load.ramp-s", "10"));
+    final int steps = Integer.parseInt(property("load.steps", "4"));
+    final long userStart = Long.parseLong(property("load.user-start", "1"));
+    final int users = Integer.parseInt(property("load.users", "10000"));
+    final String mix = property("load.mix", "order:4,async:2,product:3,ping:1");
+    final String products = property("load.products", "IPHONE15PRO:4,MACBOOKAIR:2,AIRPODSPRO:2,IPADAIR:2");
+    final int connections = Integer.parseInt(property("load.connections", "200"));
+    final int timeoutMillis = Integer.parseInt(property("load.timeout-ms", "5000"));
+    final String outputDir = property("load.output-dir", "target/loadtest");
+
+    private final Weighted<Endpoint> endpointMix = new Weighted<>();
+    private final Weighted<String> productMix = new Weighted<>();
+
+    Scenario() {
+        if (rate <= 0 || durationSeconds <= 0 || users <= 0 || connections <= 0) {
+            throw new IllegalArgumentException("load.rate / duration-s / users / connections 必须大于0");
+        }
+        if (!"constant".equals(ramp) && !"linear".equals(ramp) && !"step".equals(ramp)) {
+            throw new IllegalArgumentException("未知的速率曲线: " + ramp + "（可选 constant / linear / step）");
+        }
+        for (Map.Entry<String, Integer> entry : parseWeights(mix).entrySet()) {
+            endpointMix.add(Endpoint.of(entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : parseWeights(products).entrySet()) {
+            productMix.add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 第 elapsedNanos 纳秒时的目标速率（请求/秒），最低1，避免爬坡起点间隔无穷大
+     */
+    double rateAt(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        if ("constant".equals(ramp) || rampSeconds <= 0 || seconds >= rampSeconds) {
+            return rate;
+        }
+        double fraction;
+        if ("linear".equals(ramp)) {
+            fraction = seconds / rampSeconds;
+        } else {
+            fraction = (Math.floor(seconds * steps / rampSeconds) + 1) / steps;
+        }
+        return Math.max(1.0, rate * fraction);
+    }
+
+    Endpoint nextEndpoint(Random random) {
+        return endpointMix.pick(random);
+    }
+
+    String nextProduct(Random random) {
+        return productMix.pick(random);
+    }
+
+    long nextUser(Random random) {
+        return userStart + random.nextInt(users);
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("baseUrl", baseUrl);
+        description.put("rate", rate);
+        description.put("durationSeconds", durationSeconds);
+        description.put("ramp", ramp);
+        description.put("rampSeconds", rampSeconds);
+        description.put("steps", steps);
+        description.put("userStart", userStart);
+        description.put("users", users);
+        description.put("mix", mix);
+        description.put("products", products);
+        description.put("connections", connections);
+        description.put("timeoutMillis", timeoutMillis);
+        return description;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * 解析 "a:3,b:1" 形式的权重配置，省略权重时按1计
+     */
+    private static Map<String, Integer> parseWeights(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String item : spec.split(",")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = item.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("权重不能为负数: " + item);
+            }
+            weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+
+    /**
+     * 按权重随机选择
+     */
+    private static final class Weighted<T> {
+        private final List<T> items = new ArrayList<>();
+        private final List<Integer> cumulative = new ArrayList<>();
+        private int total;
+
+        void add(T item, int weight) {
+            if (weight == 0) {
+                return;
+            }
+            total += weight;
+            items.add(item);
+            cumulative.add(total);
+        }
+
+        T pick(Random random) {
+            if (total == 0) {
+                throw new IllegalStateException("权重配置为空");
+            }
+            int value = random.nextInt(total);
+            for (int i = 0; i < items.size(); i++) {
+                if (value < cumulative.get(i)) {
+                    return items.get(i);
+                }
+            }
+            return items.get(items.size() - 1);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.concurrency;
 
+import com.example.concurrency.config.InstrumentedTaskExecutor;
+import com.example.concurrency.config.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.cache.annotation.EnableCaching;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Spring Boot 高并发接口演示应用
@@ -31,28 +35,42 @@ public class ConcurrencyDemoApplication {
      */
     @Bean(name = "taskExecutor")
     @Lazy
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(50);
-        executor.setQueueCapacity(200);
-        executor.setThreadNamePrefix("Concurrency-");
+    public Executor taskExecutor(@Value("${task.executor.core-size:10}") int coreSize,
+                                 @Value("${task.executor.max-size:50}") int maxSize,
+                                 @Value("${task.executor.queue-capacity:200}") int queueCapacity,
+                                 @Value("${task.executor.rejection-policy:abort}") String rejectionPolicy,
+                                 MeterRegistry meterRegistry) {
+        InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor("Concurrency", rejectionPolicy, meterRegistry);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.initialize();
         return executor;
     }
     
     /**
      * 秒杀任务执行器
-     * 专门处理秒杀相关的高并发请求
+     * 专门处理秒杀相关的高并发请求；虚拟线程模式下每个任务一个虚拟线程
+     * 平台线程模式下队列满时按 seckill.executor.rejection-policy 处理，控制器将拒绝转为429
      */
     @Bean(name = "seckillExecutor")
     @Lazy
-    public Executor seckillExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(20);
-        executor.setMaxPoolSize(100);
-        executor.setQueueCapacity(500);
-        executor.setThreadNamePrefix("Seckill-");
+    public Executor seckillExecutor(@Value("${seckill.threads.mode:platform}") String threadMode,
+                                    @Value("${seckill.executor.core-size:20}") int coreSize,
+                                    @Value("${seckill.executor.max-size:100}") int maxSize,
+                                    @Value("${seckill.executor.queue-capacity:500}") int queueCapacity,
+                                    @Value("${seckill.executor.rejection-policy:abort}") String rejectionPolicy,
+                                    MeterRegistry meterRegistry) {
+        if ("virtual".equals(threadMode)) {
+            ExecutorService virtualExecutor = VirtualThreads.newExecutor("Seckill-vt-");
+            if (virtualExecutor != null) {
+                return virtualExecutor;
+            }
+        }
+        InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor("Seckill", rejectionPolicy, meterRegistry);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.initialize();
         return executor;
     }
@@ -0,0 +1,117 @@
+package com.example.concurrency.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带指标和可配置拒绝策略的线程池
+ * 发布活跃线程数、队列长度 (executor.active / executor.queued 等)、任务排队等待时间 (executor.queue.wait)
+ * 和拒绝次数 (executor.rejected)；队列已满时按拒绝策略处理：
+ * abort - 立即拒绝，调用方收到 TaskRejectedException；
+ * caller-runs - 由提交任务的线程直接执行；
+ * discard-oldest - 丢弃队列中最早的任务并取消其Future，等待该结果的调用方随即收到 CancellationException
+ */
+public class InstrumentedTaskExecutor extends ThreadPoolTaskExecutor {
+
+    public static final String ABORT = "abort";
+    public static final String CALLER_RUNS = "caller-runs";
+    public static final String DISCARD_OLDEST = "discard-oldest";
+
+    private final String name;
+    private final String rejectionPolicy;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public InstrumentedTaskExecutor(String name, String rejectionPolicy, MeterRegistry meterRegistry) {
+        if (!ABORT.equals(rejectionPolicy) && !CALLER_RUNS.equals(rejectionPolicy)
+                && !DISCARD_OLDEST.equals(rejectionPolicy)) {
+            throw new IllegalArgumentException("未知的线程池拒绝策略: " + rejectionPolicy);
+        }
+        this.name = name;
+        this.rejectionPolicy = rejectionPolicy;
+        this.meterRegistry = meterRegistry;
+        this.queueWaitTimer = Timer.builder("executor.queue.wait")
+                .description("任务在队列中等待执行的时间")
+                .tag("name", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("executor.rejected")
+                .description("队列已满被拒绝或丢弃的任务数")
+                .tag("name", name)
+                .tag("policy", rejectionPolicy)
+                .register(meterRegistry);
+        setThreadNamePrefix(name + "-");
+        setTaskDecorator(QueuedTask::new);
+        setRejectedExecutionHandler(new CountingRejectionHandler());
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        new ExecutorServiceMetrics(getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public String getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * 记录入队时间，开始执行时上报排队等待时间
+     */
+    private final class QueuedTask implements Runnable {
+        private final Runnable delegate;
+        private final long enqueuedAt = System.nanoTime();
+
+        QueuedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            delegate.run();
+        }
+
+        void discard() {
+            if (delegate instanceof Future) {
+                ((Future<?>) delegate).cancel(false);
+            }
+        }
+    }
+
+    private final class CountingRejectionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejectedCounter.increment();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("线程池已关闭: " + name);
+            }
+            if (CALLER_RUNS.equals(rejectionPolicy)) {
+                task.run();
+            } else if (DISCARD_OLDEST.equals(rejectionPolicy)) {
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest instanceof QueuedTask) {
+                    ((QueuedTask) oldest).discard();
+                }
+                // 任务已经过包装，直接放入队列，避免重复包装
+                if (!executor.getQueue().offer(task)) {
+                    throw new RejectedExecutionException("线程池队列已满: " + name);
+                }
+            } else {
+                throw new RejectedExecutionException("线程池队列已满: " + name);
+            }
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.example.concurrency.config;
 
+import com.example.concurrency.service.ProductCache;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 /**
  * Redis配置类
  * 包含连接失败时的降级处理
@@ -27,9 +37,13 @@ public class RedisConfig {
     @Value("${spring.redis.password:}")
     private String redisPassword;
     
+    @Value("${spring.redis.timeout:500ms}")
+    private Duration commandTimeout;
+    
     /**
      * Redis连接工厂
-     * 如果Redis不可用，将抛出异常供上层处理
+     * 如果Redis不可用，将抛出异常供上层处理；
+     * 命令超时取 spring.redis.timeout，熔断器关闭时单次调用最多阻塞这么久
      */
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
@@ -40,7 +54,10 @@ public class RedisConfig {
             if (redisPassword != null && !redisPassword.isEmpty()) {
                 config.setPassword(redisPassword);
             }
-            LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+            LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                    .commandTimeout(commandTimeout)
+                    .build();
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(config, clientConfig);
             factory.afterPropertiesSet(); // 触发初始化，验证连接
             return factory;
         } catch (Exception e) {
@@ -72,4 +89,29 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 响应式Redis模板
+     * 非阻塞下单接口使用，与同步模板共用Lettuce连接工厂
+     */
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate() {
+        return new ReactiveStringRedisTemplate((ReactiveRedisConnectionFactory) redisConnectionFactory());
+    }
+    
+    /**
+     * 商品缓存失效广播订阅
+     * 多节点部署时开启，收到其他节点的变更通知后失效本地缓存
+     */
+    @Bean
+    @ConditionalOnProperty(name = "seckill.product-cache.broadcast.enabled", havingValue = "true")
+    public RedisMessageListenerContainer productInvalidationListener(ProductCache productCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        container.addMessageListener(
+                (message, pattern) -> productCache.onRemoteInvalidation(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(ProductCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
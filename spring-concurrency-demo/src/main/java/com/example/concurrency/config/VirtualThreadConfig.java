@@ -0,0 +1,60 @@
+package com.example.concurrency.config;
+
+import com.example.concurrency.service.BlockingCallLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程执行模式 (seckill.threads.mode=virtual)
+ * Tomcat请求处理改为每请求一个虚拟线程，JDBC和Redis并发改由信号量限制；
+ * 秒杀异步执行器见 ConcurrencyDemoApplication#seckillExecutor；
+ * 需要JDK 21及以上运行，低版本JDK自动退回平台线程，信号量限制仍然生效
+ */
+@Configuration
+@ConditionalOnProperty(name = "seckill.threads.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+    @Bean
+    public BlockingCallLimiter blockingCallLimiter(
+            @Value("${seckill.threads.jdbc-permits:10}") int jdbcPermits,
+            @Value("${seckill.threads.redis-permits:50}") int redisPermits,
+            @Value("${seckill.threads.permit-wait-ms:1000}") long permitWaitMillis) {
+        return new BlockingCallLimiter(jdbcPermits, redisPermits, permitWaitMillis);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+        return factory -> {
+            ExecutorService executor = VirtualThreads.newExecutor("tomcat-vt-");
+            if (executor != null) {
+                factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(executor));
+                System.out.println("Tomcat请求处理使用虚拟线程");
+            }
+        };
+    }
+
+    /**
+     * 用许可包装数据源，取连接前先获取JDBC许可
+     */
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(ObjectProvider<BlockingCallLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource((DataSource) bean, limiter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.concurrency.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持
+ * 项目按Java 8编译，通过反射调用JDK 21的 Thread.ofVirtual()；
+ * 运行在不支持虚拟线程的JDK上时返回null，由调用方退回平台线程
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器，线程名为 prefix + 序号；不支持时返回null
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        if (!isSupported()) {
+            System.err.println("当前JDK " + System.getProperty("java.version") + " 不支持虚拟线程，" + prefix + "继续使用平台线程");
+            return null;
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("创建虚拟线程执行器失败，继续使用平台线程: " + e.getMessage());
+            return null;
+        }
+    }
+}
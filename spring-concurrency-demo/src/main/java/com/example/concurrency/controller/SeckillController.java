@@ -1,15 +1,29 @@
 package com.example.concurrency.controller;
 
+import com.example.concurrency.service.AdmissionGate;
+import com.example.concurrency.service.OrderTicketService;
+import com.example.concurrency.service.OrderTicketService.OrderTicket;
+import com.example.concurrency.service.ProductSnapshot;
+import com.example.concurrency.service.SeckillError;
 import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SoldOutGate;
 import com.example.concurrency.service.SeckillService.SeckillResult;
 import com.example.concurrency.service.SeckillService.ProductStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 秒杀API控制器
@@ -22,6 +36,21 @@ public class SeckillController {
     @Autowired
     private SeckillService seckillService;
     
+    @Autowired
+    private SoldOutGate soldOutGate;
+    
+    @Autowired
+    private AdmissionGate admissionGate;
+    
+    @Autowired
+    private ProductSnapshot productSnapshot;
+    
+    @Autowired
+    private OrderTicketService orderTicketService;
+    
+    @Value("${seckill.ticket.sse-timeout-ms:30000}")
+    private long ticketSseTimeoutMillis;
+    
     /**
      * 秒杀接口 - 核心测试接口
      * POST /api/v1/seckill/order
@@ -32,24 +61,29 @@ public class SeckillController {
             @RequestParam String productCode,
             @RequestParam(defaultValue = "1") Integer quantity) {
         
+        if (soldOutGate.isSoldOut(productCode)) {
+            return ResponseEntity.badRequest().body(SeckillError.SOLD_OUT.result());
+        }
+        AdmissionGate.Permit permit = admissionGate.tryAcquire(productCode);
+        if (permit == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.TRY_LATER.result());
+        }
+        
         try {
-            SeckillResult result = seckillService.doSeckill(userId, productCode, quantity);
-            
-            if (result.isSuccess()) {
-                return ResponseEntity.ok(result);
-            } else {
-                return ResponseEntity.badRequest().body(result);
-            }
+            return SeckillResponses.of(seckillService.doSeckill(userId, productCode, quantity));
             
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                    .body(SeckillResult.failed("服务器内部错误：" + e.getMessage()));
+            System.err.println("秒杀接口异常：" + e.getMessage());
+            return ResponseEntity.status(500).body(SeckillError.SYSTEM_ERROR.result());
+        } finally {
+            permit.release();
         }
     }
     
     /**
      * 异步秒杀接口 - 用于极高并发测试
      * POST /api/v1/seckill/order/async
+     * 秒杀线程池拒绝或丢弃任务时返回429，不再作为系统错误返回500
      */
     @PostMapping("/order/async")
     public CompletableFuture<ResponseEntity<SeckillResult>> doSeckillAsync(
@@ -57,17 +91,96 @@ public class SeckillController {
             @RequestParam String productCode,
             @RequestParam(defaultValue = "1") Integer quantity) {
         
-        return seckillService.doSeckillAsync(userId, productCode, quantity)
-                .thenApply(result -> {
-                    if (result.isSuccess()) {
-                        return ResponseEntity.ok(result);
-                    } else {
-                        return ResponseEntity.badRequest().body(result);
+        if (soldOutGate.isSoldOut(productCode)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(SeckillError.SOLD_OUT.result()));
+        }
+        AdmissionGate.Permit permit = admissionGate.tryAcquire(productCode);
+        if (permit == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.TRY_LATER.result()));
+        }
+        
+        CompletableFuture<SeckillResult> future;
+        try {
+            future = seckillService.doSeckillAsync(userId, productCode, quantity).completable();
+        } catch (TaskRejectedException e) {
+            permit.release();
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.BUSY.result()));
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        return future
+                .whenComplete((result, throwable) -> permit.release())
+                .thenApply(SeckillResponses::of)
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    if (cause instanceof CancellationException) {
+                        // 排队任务被 discard-oldest 策略丢弃
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.BUSY.result());
                     }
-                })
-                .exceptionally(throwable -> 
-                    ResponseEntity.status(500)
-                            .body(SeckillResult.failed("异步处理错误：" + throwable.getMessage())));
+                    System.err.println("异步秒杀处理错误：" + throwable.getMessage());
+                    return ResponseEntity.status(500).body(SeckillError.SYSTEM_ERROR.result());
+                });
+    }
+    
+    /**
+     * 排队下单 - 校验后入队并立即返回票据
+     * POST /api/v1/seckill/order/ticket
+     */
+    @PostMapping("/order/ticket")
+    public ResponseEntity<?> submitOrderTicket(
+            @RequestParam Long userId,
+            @RequestParam String productCode,
+            @RequestParam(defaultValue = "1") Integer quantity) {
+        
+        OrderTicket ticket = orderTicketService.submit(userId, productCode, quantity);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.QUEUE_FULL.result());
+        }
+        if (ticket.getTicketId() == null) {
+            // 校验未通过或限流，未入队
+            return SeckillResponses.of(ticket.getResult());
+        }
+        return ResponseEntity.accepted().body(createSuccessResponse("已排队", ticket));
+    }
+    
+    /**
+     * 查询票据状态，票据不属于该用户时返回404
+     * GET /api/v1/seckill/order/ticket/{ticketId}?userId=
+     */
+    @GetMapping("/order/ticket/{ticketId}")
+    public ResponseEntity<?> getOrderTicket(@PathVariable String ticketId, @RequestParam Long userId) {
+        OrderTicket ticket = orderTicketService.getTicket(ticketId, userId);
+        if (ticket == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(createSuccessResponse(ticket));
+    }
+    
+    /**
+     * 订阅票据结果（SSE），下单完成后推送一次 result 事件并结束；票据不属于该用户时返回404
+     * GET /api/v1/seckill/order/ticket/{ticketId}/stream?userId=
+     */
+    @GetMapping(value = "/order/ticket/{ticketId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderTicket(@PathVariable String ticketId,
+                                                        @RequestParam Long userId) {
+        OrderTicket ticket = orderTicketService.getTicket(ticketId, userId);
+        if (ticket == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = new SseEmitter(ticketSseTimeoutMillis);
+        ticket.onComplete(result -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(ticket, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或订阅已超时
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
     }
     
     /**
@@ -86,6 +199,25 @@ public class SeckillController {
         }
     }
     
+    /**
+     * 恢复商品库存
+     * POST /api/v1/seckill/product/{productCode}/stock/restore
+     */
+    @PostMapping("/product/{productCode}/stock/restore")
+    public ResponseEntity<?> restoreStock(
+            @PathVariable String productCode,
+            @RequestParam Integer quantity) {
+        try {
+            if (seckillService.restoreStock(productCode, quantity)) {
+                return ResponseEntity.ok(createSuccessResponse("库存已恢复", quantity));
+            }
+            return ResponseEntity.badRequest().body(createErrorResponse("恢复库存失败：商品不存在或超出总库存"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(createErrorResponse("恢复库存失败：" + e.getMessage()));
+        }
+    }
+    
     /**
      * 获取所有活跃商品
      * GET /api/v1/seckill/products
@@ -93,8 +225,12 @@ public class SeckillController {
     @GetMapping("/products")
     public ResponseEntity<?> getAllProducts() {
         try {
-            List<?> products = seckillService.getActiveProducts();
-            return ResponseEntity.ok(createSuccessResponse(products));
+            // 直接返回预编码的快照；带ETag时框架会比对 If-None-Match 并返回304
+            ProductSnapshot.Snapshot snapshot = productSnapshot.current();
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getEtag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.getBody());
         } catch (Exception e) {
             return ResponseEntity.status(500)
                     .body(createErrorResponse("获取商品列表失败：" + e.getMessage()));
@@ -110,6 +246,8 @@ public class SeckillController {
         try {
             List<?> products = seckillService.getProductsByCodes(productCodes);
             return ResponseEntity.ok(createSuccessResponse(products));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500)
                     .body(createErrorResponse("批量查询商品失败：" + e.getMessage()));
@@ -150,6 +288,15 @@ public class SeckillController {
         }
     }
     
+    /**
+     * 商品准入统计
+     * GET /api/v1/seckill/admission/stats
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<?> getAdmissionStats() {
+        return ResponseEntity.ok(createSuccessResponse(admissionGate.getStats()));
+    }
+    
     /**
      * 健康检查接口
      * GET /api/v1/seckill/health
@@ -169,7 +316,7 @@ public class SeckillController {
     public ResponseEntity<?> getSystemStatus() {
         try {
             // 简单的系统状态检查
-            int activeProducts = seckillService.getActiveProducts().size();
+            int activeProducts = productSnapshot.current().getProductCount();
             
             return ResponseEntity.ok(createSuccessResponse(
                 "System Status",
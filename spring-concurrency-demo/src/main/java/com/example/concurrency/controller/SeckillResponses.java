@@ -0,0 +1,38 @@
+package com.example.concurrency.controller;
+
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 下单结果到HTTP状态码的映射
+ * 成功返回200；排队已满、限流和并发冲突返回429，客户端可稍后重试；
+ * 系统异常返回500；其余业务失败（售罄、已购买、参数错误等）返回400
+ */
+public final class SeckillResponses {
+
+    private SeckillResponses() {
+    }
+
+    public static ResponseEntity<SeckillResult> of(SeckillResult result) {
+        return ResponseEntity.status(status(result)).body(result);
+    }
+
+    public static HttpStatus status(SeckillResult result) {
+        if (result.isSuccess()) {
+            return HttpStatus.OK;
+        }
+        switch (result.getError()) {
+            case QUEUE_FULL:
+            case TRY_LATER:
+            case BUSY:
+            case TOO_FREQUENT:
+            case STOCK_CONFLICT:
+                return HttpStatus.TOO_MANY_REQUESTS;
+            case SYSTEM_ERROR:
+                return HttpStatus.INTERNAL_SERVER_ERROR;
+            default:
+                return HttpStatus.BAD_REQUEST;
+        }
+    }
+}
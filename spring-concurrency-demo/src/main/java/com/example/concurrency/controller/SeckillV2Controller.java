@@ -0,0 +1,60 @@
+package com.example.concurrency.controller;
+
+import com.example.concurrency.service.AdmissionGate;
+import com.example.concurrency.service.NonBlockingSeckillService;
+import com.example.concurrency.service.SeckillError;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 非阻塞秒杀API控制器
+ * 与 /api/v1 共用商品、库存和订单数据，便于两种模型对比压测；
+ * 返回Future后请求线程立即释放，Redis预占期间不占用线程，仅落库阶段使用有界线程池；
+ * 状态码与 /api/v1 一致：限流和排队已满返回429，系统异常返回500
+ */
+@RestController
+@RequestMapping("/api/v2/seckill")
+public class SeckillV2Controller {
+
+    @Autowired
+    private NonBlockingSeckillService nonBlockingSeckillService;
+
+    @Autowired
+    private AdmissionGate admissionGate;
+
+    /**
+     * 非阻塞秒杀下单
+     * POST /api/v2/seckill/order
+     */
+    @PostMapping("/order")
+    public CompletableFuture<ResponseEntity<SeckillResult>> doSeckill(
+            @RequestParam Long userId,
+            @RequestParam String productCode,
+            @RequestParam(defaultValue = "1") Integer quantity) {
+
+        AdmissionGate.Permit permit = admissionGate.tryAcquire(productCode);
+        if (permit == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(SeckillError.TRY_LATER.result()));
+        }
+
+        CompletableFuture<SeckillResult> future;
+        try {
+            future = nonBlockingSeckillService.placeOrder(userId, productCode, quantity);
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        return future
+                .whenComplete((result, throwable) -> permit.release())
+                .thenApply(SeckillResponses::of)
+                .exceptionally(throwable -> {
+                    nonBlockingSeckillService.recordError("endpoint", throwable);
+                    return SeckillResponses.of(SeckillError.SYSTEM_ERROR.result());
+                });
+    }
+}
@@ -9,7 +9,8 @@ import java.util.Objects;
  * 秒杀订单实体类
  */
 @Entity
-@Table(name = "seckill_orders")
+@Table(name = "seckill_orders",
+       indexes = @Index(name = "idx_order_user_product", columnList = "userId, productId"))
 public class SeckillOrder {
     
     public enum OrderStatus {
@@ -20,8 +21,10 @@ public class SeckillOrder {
         TIMEOUT     // 超时
     }
     
+    // 使用池化序列分配ID，Hibernate才能对订单插入做JDBC批处理
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seckill_order_seq")
+    @SequenceGenerator(name = "seckill_order_seq", sequenceName = "seckill_order_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -3,12 +3,15 @@ package com.example.concurrency.repository;
 import com.example.concurrency.entity.SeckillOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 秒杀订单数据访问层
@@ -48,6 +51,13 @@ public interface SeckillOrderRepository extends JpaRepository<SeckillOrder, Long
            "WHERE so.userId = :userId AND so.productId = :productId AND so.status = 'SUCCESS'")
     Long countUserPurchases(@Param("userId") Long userId, @Param("productId") Long productId);
     
+    /**
+     * 流式读取所有成功订单的 (商品ID, 用户ID)，用于重建购买用户位图
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT so.productId, so.userId FROM SeckillOrder so WHERE so.status = 'SUCCESS'")
+    Stream<Object[]> streamSuccessfulBuyers();
+    
     /**
      * 统计商品总销售数量
      */
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,17 @@ public interface SeckillProductRepository extends JpaRepository<SeckillProduct,
      */
     Optional<SeckillProduct> findByProductCode(String productCode);
     
+    /**
+     * 按商品编码批量查找商品（走productCode唯一索引）
+     */
+    List<SeckillProduct> findByProductCodeIn(Collection<String> productCodes);
+    
+    /**
+     * 批量查询可用库存，返回 [商品ID, 可用库存]
+     */
+    @Query("SELECT sp.id, sp.availableStock FROM SeckillProduct sp WHERE sp.id IN :productIds")
+    List<Object[]> findAvailableStocks(@Param("productIds") Collection<Long> productIds);
+    
     /**
      * 查找所有激活的秒杀商品
      */
@@ -46,6 +58,29 @@ public interface SeckillProductRepository extends JpaRepository<SeckillProduct,
                               @Param("quantity") Integer quantity, 
                               @Param("version") Integer version);
     
+    /**
+     * 原子库存扣减 - 不校验版本号，仅要求库存充足
+     * @param productId 商品ID
+     * @param quantity 扣减数量
+     * @return 影响的记录数
+     */
+    @Modifying
+    @Query("UPDATE SeckillProduct sp SET sp.availableStock = sp.availableStock - :quantity, sp.version = sp.version + 1 " +
+           "WHERE sp.id = :productId AND sp.availableStock >= :quantity")
+    int deductStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    /**
+     * 查询全部商品编码，用于构建商品编码过滤器
+     */
+    @Query("SELECT sp.productCode FROM SeckillProduct sp")
+    List<String> findAllProductCodes();
+    
+    /**
+     * 只查询可用库存，用于商品缓存的库存部分
+     */
+    @Query("SELECT sp.availableStock FROM SeckillProduct sp WHERE sp.id = :productId")
+    Optional<Integer> findAvailableStock(@Param("productId") Long productId);
+    
     /**
      * 批量扣减库存
      */
@@ -0,0 +1,143 @@
+package com.example.concurrency.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品级准入控制
+ * 同一商品同时处理的请求数不超过 剩余库存 × 倍数，超出的请求在任何I/O之前直接拒绝；
+ * 剩余库存只读内存：账本预热时读账本，否则读本地短期缓存的数据库库存，两者都未预热时不限制并在后台预热，
+ * 各下单路径（账本、Redis预占、悲观锁、环形引擎）最终都会扣减其中之一，许可数随之收缩，归还库存后随之恢复；
+ * 获取成功返回许可，只有实际占用了计数的许可在归还时才会减少计数
+ */
+@Component
+public class AdmissionGate {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seckill.admission.multiple:2.0}")
+    private double multiple;
+
+    @Value("${seckill.admission.min-permits:1}")
+    private int minPermits;
+
+    private final Map<String, ProductAdmission> admissions = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试获取准入许可，被拒绝时返回null；返回的许可必须在请求处理结束后调用 release 归还
+     */
+    public Permit tryAcquire(String productCode) {
+        if (!enabled) {
+            return Permit.UNLIMITED;
+        }
+        int permits = permits(productCode);
+        if (permits < 0) {
+            // 库存未预热或商品不存在，不做限制也不占用计数
+            return Permit.UNLIMITED;
+        }
+        ProductAdmission admission = admissions.computeIfAbsent(productCode, this::createAdmission);
+        int current;
+        do {
+            current = admission.inFlight.get();
+            if (current >= permits) {
+                admission.rejected.increment();
+                return null;
+            }
+        } while (!admission.inFlight.compareAndSet(current, current + 1));
+        admission.admitted.increment();
+        return admission.permit;
+    }
+
+    /**
+     * 各商品的准入统计
+     */
+    public Map<String, AdmissionStats> getStats() {
+        Map<String, AdmissionStats> stats = new LinkedHashMap<>();
+        admissions.forEach((code, admission) -> stats.put(code, new AdmissionStats(
+                permits(code), admission.inFlight.get(), admission.admitted.sum(), admission.rejected.sum())));
+        return stats;
+    }
+
+    /**
+     * 当前许可数；库存未预热或商品不存在时返回-1表示不限制
+     */
+    private int permits(String productCode) {
+        int remaining = productCache.cachedAvailableStock(productCode);
+        if (remaining < 0) {
+            return -1;
+        }
+        if (remaining == 0) {
+            return 0;
+        }
+        return (int) Math.max(minPermits, Math.ceil(remaining * multiple));
+    }
+
+    private ProductAdmission createAdmission(String productCode) {
+        ProductAdmission admission = new ProductAdmission();
+        FunctionCounter.builder("seckill.admission.requests", admission.admitted, LongAdder::doubleValue)
+                .tag("product", productCode).tag("result", "admitted")
+                .register(meterRegistry);
+        FunctionCounter.builder("seckill.admission.requests", admission.rejected, LongAdder::doubleValue)
+                .tag("product", productCode).tag("result", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("seckill.admission.in-flight", admission.inFlight, AtomicInteger::get)
+                .tag("product", productCode)
+                .register(meterRegistry);
+        return admission;
+    }
+
+    private static final class ProductAdmission {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder admitted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        // 占用计数的许可，归还时减少本商品的计数
+        final Permit permit = () -> inFlight.decrementAndGet();
+    }
+
+    /**
+     * 准入许可；不限制时返回的许可不占用计数，归还为空操作
+     */
+    @FunctionalInterface
+    public interface Permit {
+        Permit UNLIMITED = () -> { };
+
+        void release();
+    }
+
+    public static class AdmissionStats {
+        private final int permits;
+        private final int inFlight;
+        private final long admitted;
+        private final long rejected;
+
+        public AdmissionStats(int permits, int inFlight, long admitted, long rejected) {
+            this.permits = permits;
+            this.inFlight = inFlight;
+            this.admitted = admitted;
+            this.rejected = rejected;
+        }
+
+        // Getters
+        public int getPermits() { return permits; }
+        public int getInFlight() { return inFlight; }
+        public long getAdmitted() { return admitted; }
+        public long getRejected() { return rejected; }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 原子更新扣减策略
+ * 单条 UPDATE ... WHERE availableStock >= :quantity，不依赖版本号，由数据库行锁保证不超卖
+ */
+@Component
+@Transactional
+public class AtomicUpdateStockDeduction implements StockDeductionStrategy {
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Override
+    public String getName() {
+        return "atomic";
+    }
+
+    @Override
+    public boolean deduct(SeckillProduct product, int quantity) {
+        return productRepository.deductStock(product.getId(), quantity) > 0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.concurrency.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞调用并发上限
+ * 虚拟线程模式下线程数不再受线程池限制，改用信号量限制同时进行的JDBC和Redis调用，
+ * 许可等待超时后快速失败，避免大量虚拟线程堆积在连接池上
+ */
+public class BlockingCallLimiter implements MeterBinder {
+
+    private final Semaphore jdbcPermits;
+    private final Semaphore redisPermits;
+    private final long waitMillis;
+
+    public BlockingCallLimiter(int jdbcPermits, int redisPermits, long waitMillis) {
+        this.jdbcPermits = new Semaphore(jdbcPermits, true);
+        this.redisPermits = new Semaphore(redisPermits, true);
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * 数据源包装时即需要本对象，指标在注册中心就绪后再绑定，避免循环依赖
+     */
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("seckill.threads.permits.available", this.jdbcPermits, Semaphore::availablePermits)
+                .description("剩余的阻塞调用许可")
+                .tag("resource", "jdbc")
+                .register(meterRegistry);
+        Gauge.builder("seckill.threads.permits.available", this.redisPermits, Semaphore::availablePermits)
+                .description("剩余的阻塞调用许可")
+                .tag("resource", "redis")
+                .register(meterRegistry);
+    }
+
+    public boolean acquireJdbc() throws InterruptedException {
+        return jdbcPermits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void releaseJdbc() {
+        jdbcPermits.release();
+    }
+
+    /**
+     * 获取Redis许可；被中断时恢复中断标记并返回false
+     */
+    public boolean acquireRedis() {
+        try {
+            return redisPermits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void releaseRedis() {
+        redisPermits.release();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.repository.SeckillOrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 商品购买用户位图
+ * 按商品记录已成功下单的用户ID，启动时从订单表重建，O(1)判断用户是否买过；
+ * 位图只可能多报（如订单回滚），命中时再由数据库确认，未命中则无需查询数据库。
+ * 检查与记录之间不是原子的：用户在下单事务中被记录，提交前同一用户的另一个请求仍可能未命中，
+ * 因此同一 (商品, 用户) 的请求必须由调用方串行化到下单事务结束——用户锁持有到事务完成、
+ * Redis预占脚本按用户去重、下单引擎的购买用户集合；位图只负责省去未购买用户的数据库查询
+ */
+@Component
+public class BuyerRegistry {
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, BuyerBitmap> bitmaps = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 应用启动完成后从成功订单重建位图
+     * 只追加不清空：重建期间下单记录的用户可能还未提交、读不到，清空会让位图漏报
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long[] count = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> buyers = orderRepository.streamSuccessfulBuyers()) {
+                buyers.forEach(row -> {
+                    record((Long) row[0], (Long) row[1]);
+                    count[0]++;
+                });
+            }
+        });
+        ready = true;
+        System.out.println("购买用户位图重建完成，订单数:" + count[0]);
+    }
+
+    /**
+     * 用户是否可能已购买该商品
+     * 位图未就绪或用户ID无法放入位图时返回true，由调用方查询数据库确认
+     */
+    public boolean mightHaveBought(Long productId, Long userId) {
+        if (!ready || userId < 0) {
+            return true;
+        }
+        BuyerBitmap bitmap = bitmaps.get(productId);
+        return bitmap != null && bitmap.contains(userId);
+    }
+
+    /**
+     * 记录下单成功的用户
+     */
+    public void record(Long productId, Long userId) {
+        if (userId < 0) {
+            return;
+        }
+        bitmaps.computeIfAbsent(productId, id -> new BuyerBitmap()).add(userId);
+    }
+
+    /**
+     * 分块位图
+     * 用户ID按高位分块，每块4096位，只为出现过的用户段分配内存
+     */
+    static final class BuyerBitmap {
+
+        private static final int CHUNK_BITS = 12;
+        private static final int WORDS_PER_CHUNK = (1 << CHUNK_BITS) / 64;
+
+        private final Map<Long, AtomicLongArray> chunks = new ConcurrentHashMap<>();
+
+        boolean contains(long userId) {
+            AtomicLongArray chunk = chunks.get(userId >>> CHUNK_BITS);
+            return chunk != null && (chunk.get(wordIndex(userId)) & bitMask(userId)) != 0;
+        }
+
+        void add(long userId) {
+            AtomicLongArray chunk = chunks.computeIfAbsent(userId >>> CHUNK_BITS,
+                    key -> new AtomicLongArray(WORDS_PER_CHUNK));
+            int index = wordIndex(userId);
+            long mask = bitMask(userId);
+            long current;
+            while (((current = chunk.get(index)) & mask) == 0) {
+                if (chunk.compareAndSet(index, current, current | mask)) {
+                    return;
+                }
+            }
+        }
+
+        private static int wordIndex(long userId) {
+            return (int) ((userId & ((1 << CHUNK_BITS) - 1)) >>> 6);
+        }
+
+        private static long bitMask(long userId) {
+            return 1L << (userId & 63);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.example.concurrency.service;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 带过期时间的内存存储（Redis降级模式使用）
+ * 每个条目自带过期时间，读取时惰性删除，同时由后台分层时间轮定期清理；
+ * 单个key上的加锁、自增、不存在才设置等操作都在一次原子计算中完成；
+ * 条目数超过上限时在有过期时间的条目中抽样淘汰，优先淘汰最先过期的条目，其次是最久未访问的条目；
+ * 不过期的条目（库存计数器、购买用户集合等）从不淘汰，抽样中没有可淘汰的条目时允许超出上限
+ */
+public class ExpiringMemoryStore {
+
+    private static final long NO_EXPIRE = Long.MAX_VALUE;
+    private static final int EVICTION_SAMPLES = 16;
+    private static final int EVICTION_SCAN_LIMIT = 256;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+    private final ScheduledExecutorService reaper;
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private volatile int maxEntries;
+    private Iterator<Map.Entry<String, Entry>> evictionCursor;
+
+    public ExpiringMemoryStore(int maxEntries, long tickMillis) {
+        this.maxEntries = maxEntries;
+        this.wheel = new TimingWheel(tickMillis);
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-store-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleAtFixedRate(wheel::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public String get(String key) {
+        Entry entry = live(key);
+        return entry != null && entry.value instanceof String ? (String) entry.value : null;
+    }
+
+    public boolean exists(String key) {
+        return live(key) != null;
+    }
+
+    /**
+     * 设置值，ttlMillis <= 0 表示不过期
+     */
+    public void set(String key, String value, long ttlMillis) {
+        setObject(key, value, ttlMillis);
+    }
+
+    /**
+     * 设置任意对象值（本地缓存使用），ttlMillis <= 0 表示不过期
+     */
+    public void setObject(String key, Object value, long ttlMillis) {
+        Entry entry = new Entry(value, deadline(ttlMillis));
+        ensureCapacity(key);
+        entries.put(key, entry);
+        schedule(key, entry);
+    }
+
+    /**
+     * 获取指定类型的对象值，不存在或类型不符时返回null
+     */
+    public <T> T getObject(String key, Class<T> type) {
+        Entry entry = live(key);
+        return entry != null && type.isInstance(entry.value) ? type.cast(entry.value) : null;
+    }
+
+    /**
+     * key不存在（或已过期）时才设置
+     */
+    public boolean setIfAbsent(String key, String value, long ttlMillis) {
+        boolean[] created = new boolean[1];
+        ensureCapacity(key);
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now())) {
+                return current;
+            }
+            created[0] = true;
+            return new Entry(value, deadline(ttlMillis));
+        });
+        if (created[0]) {
+            schedule(key, entry);
+        }
+        return created[0];
+    }
+
+    public boolean delete(String key) {
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * 值与预期一致时才删除
+     */
+    public boolean compareAndDelete(String key, String expected) {
+        boolean[] deleted = new boolean[1];
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current.isExpired(now())) {
+                return null;
+            }
+            if (!expected.equals(current.value)) {
+                return current;
+            }
+            deleted[0] = true;
+            return null;
+        });
+        return deleted[0];
+    }
+
+    /**
+     * 值与预期一致时才重置过期时间
+     */
+    public boolean compareAndExpire(String key, String expected, long ttlMillis) {
+        Entry[] renewed = new Entry[1];
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current.isExpired(now())) {
+                return null;
+            }
+            if (!expected.equals(current.value)) {
+                return current;
+            }
+            renewed[0] = new Entry(current.value, deadline(ttlMillis));
+            return renewed[0];
+        });
+        if (renewed[0] != null) {
+            schedule(key, renewed[0]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 原子自增，保留原有过期时间；key不存在时从0开始且不过期
+     */
+    public long incr(String key, long delta) {
+        long[] result = new long[1];
+        ensureCapacity(key);
+        entries.compute(key, (k, current) -> {
+            boolean present = current != null && !current.isExpired(now());
+            long value = present ? Long.parseLong((String) current.value) + delta : delta;
+            result[0] = value;
+            return present ? current.withValue(String.valueOf(value)) : new Entry(String.valueOf(value), NO_EXPIRE);
+        });
+        return result[0];
+    }
+
+    /**
+     * 在单个key上原子更新字符串值，返回null表示删除；过期时间保持不变
+     * 更新函数的参数为null表示key不存在
+     */
+    public String update(String key, UnaryOperator<String> function) {
+        ensureCapacity(key);
+        Entry entry = entries.compute(key, (k, current) -> {
+            boolean present = current != null && !current.isExpired(now());
+            String value = function.apply(present ? (String) current.value : null);
+            if (value == null) {
+                return null;
+            }
+            return present ? current.withValue(value) : new Entry(value, NO_EXPIRE);
+        });
+        return entry != null ? (String) entry.value : null;
+    }
+
+    /**
+     * 获取集合类型的值，不存在时创建
+     */
+    public Set<String> getOrCreateSet(String key) {
+        ensureCapacity(key);
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now()) && current.value instanceof Set) {
+                current.touch();
+                return current;
+            }
+            return new Entry(ConcurrentHashMap.<String>newKeySet(), NO_EXPIRE);
+        });
+        @SuppressWarnings("unchecked")
+        Set<String> set = (Set<String>) entry.value;
+        return set;
+    }
+
+    /**
+     * 获取集合类型的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getSet(String key) {
+        Entry entry = live(key);
+        return entry != null && entry.value instanceof Set ? (Set<String>) entry.value : null;
+    }
+
+    public boolean expire(String key, long ttlMillis) {
+        Entry[] updated = new Entry[1];
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current.isExpired(now())) {
+                return null;
+            }
+            updated[0] = new Entry(current.value, deadline(ttlMillis));
+            return updated[0];
+        });
+        if (updated[0] != null) {
+            schedule(key, updated[0]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 剩余存活毫秒数：不存在返回-2，不过期返回-1
+     */
+    public long ttlMillis(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return -2;
+        }
+        if (entry.deadline == NO_EXPIRE) {
+            return -1;
+        }
+        return Math.max(0, entry.deadline - now());
+    }
+
+    public void deleteByPrefix(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(now())) {
+            if (entries.remove(key, entry)) {
+                expired.increment();
+            }
+            return null;
+        }
+        entry.touch();
+        return entry;
+    }
+
+    /**
+     * 新增key前检查容量，超过上限时抽样淘汰
+     */
+    private void ensureCapacity(String key) {
+        while (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            if (!evictOne()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从上次停下的位置继续抽样，避免总是淘汰哈希表头部的条目；
+     * 最多查看 EVICTION_SCAN_LIMIT 个条目，凑够 EVICTION_SAMPLES 个有过期时间的候选即停止，
+     * 不过期的条目不作为候选，没有候选时返回false
+     */
+    private synchronized boolean evictOne() {
+        long now = now();
+        String victimKey = null;
+        Entry victim = null;
+        int expiring = 0;
+        for (int i = 0; i < EVICTION_SCAN_LIMIT && expiring < EVICTION_SAMPLES; i++) {
+            if (evictionCursor == null || !evictionCursor.hasNext()) {
+                evictionCursor = entries.entrySet().iterator();
+                if (!evictionCursor.hasNext()) {
+                    break;
+                }
+            }
+            Map.Entry<String, Entry> candidate = evictionCursor.next();
+            Entry entry = candidate.getValue();
+            if (entry.isExpired(now)) {
+                victimKey = candidate.getKey();
+                victim = entry;
+                break;
+            }
+            if (entry.deadline == NO_EXPIRE) {
+                continue;
+            }
+            expiring++;
+            if (victim == null || entry.evictsBefore(victim)) {
+                victimKey = candidate.getKey();
+                victim = entry;
+            }
+        }
+        if (victim != null && entries.remove(victimKey, victim)) {
+            evicted.increment();
+            return true;
+        }
+        return victim != null;
+    }
+
+    private void schedule(String key, Entry entry) {
+        if (entry.deadline != NO_EXPIRE) {
+            wheel.incoming.add(new Timer(key, entry.deadline));
+        }
+    }
+
+    /**
+     * 定时器按key和过期时间匹配条目：自增、更新会替换条目实例但保留过期时间，原定时器仍然有效
+     */
+    private boolean isCurrent(Timer timer) {
+        Entry entry = entries.get(timer.key);
+        return entry != null && entry.deadline == timer.deadline;
+    }
+
+    private void expireTimer(Timer timer) {
+        boolean[] removed = new boolean[1];
+        entries.computeIfPresent(timer.key, (k, current) -> {
+            if (current.deadline == timer.deadline && current.isExpired(now())) {
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        if (removed[0]) {
+            expired.increment();
+        }
+    }
+
+    private static long deadline(long ttlMillis) {
+        return ttlMillis > 0 ? now() + ttlMillis : NO_EXPIRE;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long deadline;
+        volatile long accessed;
+
+        Entry(Object value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+            this.accessed = now();
+        }
+
+        Entry withValue(Object newValue) {
+            return new Entry(newValue, deadline);
+        }
+
+        boolean isExpired(long now) {
+            return deadline != NO_EXPIRE && now >= deadline;
+        }
+
+        void touch() {
+            accessed = now();
+        }
+
+        /**
+         * 淘汰顺序（只比较有过期时间的条目）：过期时间早的先淘汰，其次最久未访问的先淘汰
+         */
+        boolean evictsBefore(Entry other) {
+            if (deadline != other.deadline) {
+                return deadline < other.deadline;
+            }
+            return accessed < other.accessed;
+        }
+    }
+
+    private static final class Timer {
+        final String key;
+        final long deadline;
+
+        Timer(String key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 分层时间轮，只由清理线程访问
+     * 每层64个槽，第0层每槽一个tick，上层每槽覆盖下一层一整圈；
+     * 上层槽到期时把其中的定时器下放到低层，到期的条目从存储中删除
+     */
+    private final class TimingWheel {
+
+        private static final int SLOT_BITS = 6;
+        private static final int SLOTS = 1 << SLOT_BITS;
+        private static final int LEVELS = 4;
+
+        // 写入线程投递的新定时器（多生产者单消费者）
+        final Queue<Timer> incoming = new ConcurrentLinkedQueue<>();
+
+        private final long tickMillis;
+        private final long startMillis;
+        private final ArrayDeque<Timer>[][] slots;
+        private long currentTick = 0;
+
+        @SuppressWarnings("unchecked")
+        TimingWheel(long tickMillis) {
+            this.tickMillis = tickMillis;
+            this.startMillis = now();
+            this.slots = new ArrayDeque[LEVELS][SLOTS];
+            for (int level = 0; level < LEVELS; level++) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    slots[level][slot] = new ArrayDeque<>();
+                }
+            }
+        }
+
+        void advance() {
+            try {
+                Timer timer;
+                while ((timer = incoming.poll()) != null) {
+                    insert(timer);
+                }
+                long targetTick = (now() - startMillis) / tickMillis;
+                while (currentTick < targetTick) {
+                    currentTick++;
+                    cascade(1);
+                    drain(slots[0][(int) (currentTick & (SLOTS - 1))]);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("内存存储过期清理失败: " + e.getMessage());
+            }
+        }
+
+        /**
+         * 低层转满一圈时把上一层当前槽的定时器重新插入
+         */
+        private void cascade(int level) {
+            if (level >= LEVELS || (currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            cascade(level + 1);
+            drain(slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1))]);
+        }
+
+        private void drain(ArrayDeque<Timer> slot) {
+            int count = slot.size();
+            for (int i = 0; i < count; i++) {
+                insert(slot.poll());
+            }
+        }
+
+        private void insert(Timer timer) {
+            if (!isCurrent(timer)) {
+                // 条目已删除或过期时间已重置，新的过期时间有自己的定时器
+                return;
+            }
+            long deadlineTick = (timer.deadline - startMillis + tickMillis - 1) / tickMillis;
+            long delta = deadlineTick - currentTick;
+            if (delta <= 0) {
+                expireTimer(timer);
+                return;
+            }
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+                level++;
+            }
+            // 超出最高层范围的定时器先放在最高层，转到时再重新计算
+            long slotTick = Math.min(deadlineTick, currentTick + (1L << (SLOT_BITS * LEVELS)) - 1);
+            slots[level][(int) ((slotTick >>> (SLOT_BITS * level)) & (SLOTS - 1))].add(timer);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并提交扣减策略
+ * 同一商品在一个时间窗口内到达的扣减请求合并为一条
+ * availableStock = availableStock - N 更新，再按到达顺序把扣到的库存分给等待的请求；
+ * 合并更新由单独的写线程通过专用连接执行，不占用请求事务的连接池；
+ * 归还库存失败时按退避重试，重试耗尽计入 seckill.stock.group-commit.restore-failed 并记录商品和数量
+ */
+@Component
+public class GroupCommitStockDeduction implements StockDeductionStrategy {
+
+    private static final String DEDUCT_SQL =
+            "UPDATE seckill_products SET available_stock = available_stock - ?, version = version + 1 " +
+            "WHERE id = ? AND available_stock >= ?";
+    private static final String LOCK_SQL =
+            "SELECT available_stock FROM seckill_products WHERE id = ? FOR UPDATE";
+    private static final String RESTORE_SQL =
+            "UPDATE seckill_products SET available_stock = available_stock + ?, version = version + 1 WHERE id = ?";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${seckill.stock.group-commit.window-micros:2000}")
+    private long windowMicros;
+
+    @Value("${seckill.stock.group-commit.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${seckill.stock.group-commit.wait-timeout-ms:1000}")
+    private long waitTimeoutMillis;
+
+    @Value("${seckill.stock.group-commit.restore-attempts:3}")
+    private int restoreAttempts;
+
+    @Value("${seckill.stock.group-commit.restore-backoff-ms:100}")
+    private long restoreBackoffMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Combiner> combiners = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DataSource writerDataSource;
+    private Counter restoreRetriedCounter;
+    private Counter restoreFailedCounter;
+
+    // 只在写线程中访问
+    private Connection connection;
+
+    @PostConstruct
+    public void init() {
+        writerDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        restoreRetriedCounter = meterRegistry.counter("seckill.stock.group-commit.restore-retried");
+        restoreFailedCounter = meterRegistry.counter("seckill.stock.group-commit.restore-failed");
+    }
+
+    @Override
+    public String getName() {
+        return "group-commit";
+    }
+
+    @Override
+    public boolean deduct(SeckillProduct product, int quantity) {
+        Combiner combiner = combiners.computeIfAbsent(product.getId(), Combiner::new);
+        Request request = new Request(quantity);
+        combiner.queue.add(request);
+        try {
+            if (combiner.pending.incrementAndGet() >= maxBatch) {
+                writer.execute(() -> flush(combiner));
+            } else if (combiner.scheduled.compareAndSet(false, true)) {
+                writer.schedule(() -> flush(combiner), windowMicros, TimeUnit.MICROSECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // 应用关闭中，写线程不再接受合并扣减
+            request.result.complete(false);
+            return false;
+        }
+
+        boolean granted;
+        try {
+            granted = request.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // 放弃等待；若写线程随后分到库存，会因complete失败而归还
+            if (request.result.complete(false)) {
+                return false;
+            }
+            granted = request.result.getNow(false);
+        } catch (ExecutionException e) {
+            return false;
+        }
+        if (granted) {
+            restoreOnRollback(product.getId(), quantity);
+        }
+        return granted;
+    }
+
+    /**
+     * 合并扣减已在独立连接上提交，请求事务回滚时需要把库存加回去
+     */
+    private void restoreOnRollback(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    submitRestore(productId, quantity, 1, 0);
+                }
+            }
+        });
+    }
+
+    private void flush(Combiner combiner) {
+        combiner.scheduled.set(false);
+        List<Request> batch = new ArrayList<>();
+        int requested = 0;
+        Request request;
+        while (batch.size() < maxBatch && (request = combiner.queue.poll()) != null) {
+            batch.add(request);
+            requested += request.quantity;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        combiner.pending.addAndGet(-batch.size());
+
+        try {
+            int granted = deductUpTo(combiner.productId, requested);
+            int unused = 0;
+            for (Request waiting : batch) {
+                boolean ok = waiting.quantity <= granted;
+                if (ok) {
+                    granted -= waiting.quantity;
+                }
+                if (!waiting.result.complete(ok) && ok) {
+                    // 调用方已超时放弃
+                    unused += waiting.quantity;
+                }
+            }
+            unused += granted;
+            if (unused > 0 && !restore(combiner.productId, unused)) {
+                retryOrGiveUp(combiner.productId, unused, 1);
+            }
+        } catch (SQLException e) {
+            System.err.println("合并扣减库存失败: " + e.getMessage());
+            closeConnection();
+            batch.forEach(waiting -> waiting.result.complete(false));
+        }
+
+        if (!combiner.queue.isEmpty() && combiner.scheduled.compareAndSet(false, true)) {
+            writer.execute(() -> flush(combiner));
+        }
+    }
+
+    /**
+     * 扣减最多requested件库存，返回实际扣到的数量
+     * 库存充足时一条UPDATE完成；不足时锁定商品行后扣减剩余库存
+     */
+    private int deductUpTo(Long productId, int requested) throws SQLException {
+        Connection conn = connection();
+        try (PreparedStatement deduct = conn.prepareStatement(DEDUCT_SQL)) {
+            deduct.setInt(1, requested);
+            deduct.setLong(2, productId);
+            deduct.setInt(3, requested);
+            if (deduct.executeUpdate() == 1) {
+                return requested;
+            }
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            int available = 0;
+            try (PreparedStatement lock = conn.prepareStatement(LOCK_SQL)) {
+                lock.setLong(1, productId);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (rs.next()) {
+                        available = rs.getInt(1);
+                    }
+                }
+            }
+            int granted = Math.max(0, Math.min(available, requested));
+            if (granted > 0) {
+                try (PreparedStatement deduct = conn.prepareStatement(DEDUCT_SQL)) {
+                    deduct.setInt(1, granted);
+                    deduct.setLong(2, productId);
+                    deduct.setInt(3, granted);
+                    deduct.executeUpdate();
+                }
+            }
+            conn.commit();
+            return granted;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * 在写线程中归还库存，失败时按退避重新提交；写线程已关闭时在当前线程用临时连接归还
+     */
+    private void submitRestore(Long productId, int quantity, int attempt, long delayMillis) {
+        try {
+            writer.schedule(() -> {
+                if (!restore(productId, quantity)) {
+                    retryOrGiveUp(productId, quantity, attempt);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            restoreDirectly(productId, quantity, attempt);
+        }
+    }
+
+    private void retryOrGiveUp(Long productId, int quantity, int attempt) {
+        if (attempt >= restoreAttempts) {
+            restoreFailedCounter.increment();
+            System.err.println("归还合并扣减库存重试耗尽，需人工处理 - 商品ID:" + productId + ", 数量:" + quantity);
+            return;
+        }
+        restoreRetriedCounter.increment();
+        submitRestore(productId, quantity, attempt + 1, restoreBackoffMillis * attempt);
+    }
+
+    private void restoreDirectly(Long productId, int quantity, int attempt) {
+        for (int i = attempt; ; i++) {
+            try (Connection conn = writerDataSource.getConnection();
+                 PreparedStatement restore = conn.prepareStatement(RESTORE_SQL)) {
+                restore.setInt(1, quantity);
+                restore.setLong(2, productId);
+                restore.executeUpdate();
+                return;
+            } catch (SQLException e) {
+                System.err.println("归还合并扣减库存失败 - 商品ID:" + productId + ", 数量:" + quantity + ", 原因:" + e.getMessage());
+            }
+            if (i >= restoreAttempts) {
+                restoreFailedCounter.increment();
+                System.err.println("归还合并扣减库存重试耗尽，需人工处理 - 商品ID:" + productId + ", 数量:" + quantity);
+                return;
+            }
+            restoreRetriedCounter.increment();
+            try {
+                Thread.sleep(restoreBackoffMillis * i);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                restoreFailedCounter.increment();
+                System.err.println("归还合并扣减库存被中断，需人工处理 - 商品ID:" + productId + ", 数量:" + quantity);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在写线程的专用连接上归还库存
+     * @return 归还成功返回true
+     */
+    private boolean restore(Long productId, int quantity) {
+        try (PreparedStatement restore = connection().prepareStatement(RESTORE_SQL)) {
+            restore.setInt(1, quantity);
+            restore.setLong(2, productId);
+            restore.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("归还合并扣减库存失败 - 商品ID:" + productId + ", 数量:" + quantity + ", 原因:" + e.getMessage());
+            closeConnection();
+            return false;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = writerDataSource.getConnection();
+            connection.setAutoCommit(true);
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // 连接已不可用
+            }
+            connection = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 已提交的归还（包括退避中的重试）在关闭前执行完，之后提交的归还在调用线程执行
+        writer.shutdown();
+        if (writer.awaitTermination(5, TimeUnit.SECONDS)) {
+            closeConnection();
+        }
+    }
+
+    private static final class Combiner {
+        final Long productId;
+        final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Combiner(Long productId) {
+            this.productId = productId;
+        }
+    }
+
+    private static final class Request {
+        final int quantity;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Request(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
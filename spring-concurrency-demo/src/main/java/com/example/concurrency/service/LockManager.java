@@ -0,0 +1,170 @@
+package com.example.concurrency.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 下单锁管理器
+ * 单机模式只使用按 (商品, 用户) 哈希分段的本地锁，不访问Redis；
+ * 集群模式在本地锁之上再获取Redis租约，由看门狗定期续期；租约值由节点ID、进程启动时的随机前缀和
+ * 本地递增序号在本地生成，不额外访问Redis，释放和续期都按租约值校验持有者，避免锁被其他请求误删；
+ * 数据库写入不校验令牌，租约丢失只能由持有者在提交前检查 isValid 后回滚
+ */
+@Component
+public class LockManager {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${seckill.lock.cluster-mode:false}")
+    private boolean clusterMode;
+
+    @Value("${seckill.lock.stripes:1024}")
+    private int stripes;
+
+    @Value("${seckill.lock.wait-ms:100}")
+    private long waitMillis;
+
+    @Value("${seckill.lock.lease-ms:10000}")
+    private long leaseMillis;
+
+    @Value("${seckill.order.node-id:1}")
+    private long nodeId;
+
+    private ReentrantLock[] locks;
+    private int mask;
+    // 进程内区分持有者：重启后序号从头开始，随机前缀避免与上个进程残留的租约值相同
+    private final String leasePrefix = Long.toHexString(ThreadLocalRandom.current().nextLong()) + ":";
+    private final AtomicLong leaseSequence = new AtomicLong();
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        // 分段数取2的幂，按位与定位分段
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+        System.out.println("下单锁模式: " + (clusterMode ? "本地锁 + Redis租约" : "本地分段锁") + ", 分段数:" + size);
+    }
+
+    /**
+     * 获取 (商品, 用户) 锁，获取失败返回null
+     * 返回的锁必须在同一线程中关闭
+     */
+    public LockHandle tryLock(String productCode, Long userId) {
+        ReentrantLock local = locks[stripe(productCode, userId)];
+        try {
+            if (!local.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (!clusterMode) {
+            return new LockHandle(local, null, null, 0);
+        }
+
+        String leaseKey = "seckill:lock:" + productCode + ":" + userId;
+        try {
+            long token = leaseSequence.incrementAndGet();
+            String leaseValue = nodeId + ":" + leasePrefix + token;
+            if (!redisService.tryLock(leaseKey, leaseValue, leaseMillis)) {
+                local.unlock();
+                return null;
+            }
+            LockHandle handle = new LockHandle(local, leaseKey, leaseValue, token);
+            long period = Math.max(1, leaseMillis / 3);
+            handle.renewal = watchdog.scheduleAtFixedRate(handle::renew, period, period, TimeUnit.MILLISECONDS);
+            return handle;
+        } catch (RuntimeException e) {
+            local.unlock();
+            throw e;
+        }
+    }
+
+    private int stripe(String productCode, Long userId) {
+        int hash = 31 * productCode.hashCode() + Long.hashCode(userId);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public boolean isClusterMode() {
+        return clusterMode;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 已获取的锁
+     */
+    public final class LockHandle implements AutoCloseable {
+        private final ReentrantLock local;
+        private final String leaseKey;
+        private final String leaseValue;
+        private final long token;
+        private volatile ScheduledFuture<?> renewal;
+        private volatile boolean leaseLost = false;
+
+        private LockHandle(ReentrantLock local, String leaseKey, String leaseValue, long token) {
+            this.local = local;
+            this.leaseKey = leaseKey;
+            this.leaseValue = leaseValue;
+            this.token = token;
+        }
+
+        private void renew() {
+            try {
+                if (!redisService.renewLock(leaseKey, leaseValue, leaseMillis)) {
+                    leaseLost = true;
+                    renewal.cancel(false);
+                    System.err.println("锁租约已丢失: " + leaseKey + ", 令牌:" + token);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("锁租约续期失败: " + leaseKey + ", 原因:" + e.getMessage());
+            }
+        }
+
+        /**
+         * 锁是否仍然有效（集群模式下租约未丢失）
+         */
+        public boolean isValid() {
+            return !leaseLost;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (leaseKey != null) {
+                    renewal.cancel(false);
+                    if (!leaseLost) {
+                        redisService.releaseLock(leaseKey, leaseValue);
+                    }
+                }
+            } finally {
+                local.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 非阻塞秒杀下单
+ * 内存校验和账本预占在请求线程上完成，Redis去重和库存预占走响应式连接，等待期间不占用线程；
+ * 只有预占成功的请求才进入有界的落库线程池确认订单，线程数按数据库连接数配置，
+ * 请求线程在返回Future后立即释放，连接数不再受Tomcat线程数限制。
+ * 异常不逐条写标准错误输出（同步写入会阻塞Redis回调线程），按阶段和异常类型计入 seckill.v2.errors
+ */
+@Service
+public class NonBlockingSeckillService {
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private SoldOutGate soldOutGate;
+
+    @Autowired
+    private ProductCodeFilter productCodeFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.ledger.enabled:true}")
+    private boolean ledgerEnabled;
+
+    @Value("${seckill.order.confirm.threads:10}")
+    private int confirmThreads;
+
+    @Value("${seckill.order.confirm.queue-capacity:5000}")
+    private int confirmQueueCapacity;
+
+    private ThreadPoolExecutor confirmExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        confirmExecutor = new ThreadPoolExecutor(confirmThreads, confirmThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(confirmQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "order-confirm-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("seckill.order.confirm.queue", confirmExecutor, executor -> executor.getQueue().size())
+                .description("等待落库确认的已预占订单数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 下单；返回的Future完成前不占用请求线程
+     */
+    public CompletableFuture<SeckillResult> placeOrder(Long userId, String productCode, Integer quantity) {
+        if (userId == null || productCode == null || quantity == null || quantity <= 0) {
+            return CompletableFuture.completedFuture(SeckillError.INVALID_PARAM.result());
+        }
+        if (quantity > 1) {
+            return CompletableFuture.completedFuture(SeckillError.LIMIT_EXCEEDED.result());
+        }
+        if (soldOutGate.isSoldOut(productCode)) {
+            return CompletableFuture.completedFuture(SeckillError.SOLD_OUT.result());
+        }
+        if (!productCodeFilter.mightContain(productCode)) {
+            return CompletableFuture.completedFuture(SeckillError.PRODUCT_NOT_FOUND.result());
+        }
+        // 观察库存前读取售罄标记版本号，期间有库存归还时不再标记售罄
+        long soldOutVersion = soldOutGate.version(productCode);
+
+        // 账本已预热时先在内存中预占，售罄请求不访问Redis；未预热的商品由数据库条件扣减兜底
+        boolean fromLedger = false;
+        if (ledgerEnabled && stockLedger.contains(productCode)) {
+            if (!stockLedger.tryReserve(productCode, quantity)) {
+                soldOutGate.markSoldOut(productCode, soldOutVersion);
+                return CompletableFuture.completedFuture(SeckillError.SOLD_OUT.result());
+            }
+            fromLedger = true;
+        }
+
+        boolean ledgerReserved = fromLedger;
+        return redisService.reserveStockAsync(productCode, userId, quantity)
+                .thenCompose(reserveResult -> {
+                    if (reserveResult != RedisService.ReserveResult.NOT_INITIALIZED) {
+                        return CompletableFuture.completedFuture(reserveResult);
+                    }
+                    // 库存计数器未初始化：在落库线程池中读取数据库库存后重试一次
+                    return supplyOnConfirmPool(() -> seckillService.initReservationStock(productCode))
+                            .thenCompose(initialized -> initialized
+                                    ? redisService.reserveStockAsync(productCode, userId, quantity)
+                                    : CompletableFuture.completedFuture(RedisService.ReserveResult.NOT_INITIALIZED));
+                })
+                .thenCompose(reserveResult -> {
+                    if (reserveResult != RedisService.ReserveResult.RESERVED) {
+                        releaseLedger(productCode, quantity, ledgerReserved);
+                        return CompletableFuture.completedFuture(reservationFailure(productCode, reserveResult, soldOutVersion));
+                    }
+                    return supplyOnConfirmPool(
+                            () -> seckillService.confirmReservation(userId, productCode, quantity, ledgerReserved))
+                            .exceptionally(error -> confirmFailure(productCode, userId, quantity, ledgerReserved, error));
+                })
+                .exceptionally(error -> {
+                    // 初始化库存计数器失败，此时Redis尚未预占
+                    releaseLedger(productCode, quantity, ledgerReserved);
+                    return failure("reserve", unwrap(error));
+                });
+    }
+
+    private SeckillResult reservationFailure(String productCode, RedisService.ReserveResult reserveResult,
+                                             long soldOutVersion) {
+        switch (reserveResult) {
+            case ALREADY_BOUGHT:
+                return SeckillError.ALREADY_BOUGHT.result();
+            case NOT_INITIALIZED:
+                return SeckillError.PRODUCT_NOT_FOUND.result();
+            default:
+                soldOutGate.markSoldOut(productCode, soldOutVersion);
+                return SeckillError.SOLD_OUT.result();
+        }
+    }
+
+    /**
+     * 落库阶段未执行或异常结束：线程池已满时归还全部预占；
+     * 其他异常可能已由确认方法或事务回滚归还过账本，只做幂等的Redis取消，账本宁可少卖不超卖
+     */
+    private SeckillResult confirmFailure(String productCode, Long userId, int quantity,
+                                         boolean fromLedger, Throwable error) {
+        Throwable cause = unwrap(error);
+        redisService.cancelReservation(productCode, userId, quantity);
+        soldOutGate.reset(productCode);
+        if (cause instanceof RejectedExecutionException) {
+            releaseLedger(productCode, quantity, fromLedger);
+        }
+        return failure("confirm", cause);
+    }
+
+    private SeckillResult failure(String stage, Throwable cause) {
+        if (cause instanceof RejectedExecutionException) {
+            return SeckillError.QUEUE_FULL.result();
+        }
+        recordError(stage, cause);
+        return SeckillError.SYSTEM_ERROR.result();
+    }
+
+    /**
+     * 按处理阶段和异常类型计数
+     */
+    public void recordError(String stage, Throwable error) {
+        meterRegistry.counter("seckill.v2.errors",
+                "stage", stage, "exception", unwrap(error).getClass().getSimpleName()).increment();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private void releaseLedger(String productCode, int quantity, boolean fromLedger) {
+        if (fromLedger) {
+            stockLedger.release(productCode, quantity);
+            soldOutGate.reset(productCode);
+        }
+    }
+
+    /**
+     * 提交到落库线程池；队列已满时返回异常完成的Future
+     */
+    private <T> CompletableFuture<T> supplyOnConfirmPool(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, confirmExecutor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        confirmExecutor.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 乐观锁扣减策略
+ * 在调用方事务中按读到的版本号扣减一次，版本冲突时返回false；
+ * 库存仍充足时由 SeckillService 结束当前事务，按指数退避加随机抖动等待后在新事务中重新读取商品重试，
+ * 等待期间不持有数据库连接，重试也不会沿用旧事务的快照
+ */
+@Component
+@Transactional
+public class OptimisticRetryStockDeduction implements StockDeductionStrategy {
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Override
+    public String getName() {
+        return "optimistic";
+    }
+
+    @Override
+    public boolean deduct(SeckillProduct product, int quantity) {
+        Integer version = product.getVersion();
+        return version != null
+                && productRepository.deductStockWithVersion(product.getId(), quantity, version) > 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.concurrency.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 订单号生成器 (Snowflake)
+ * 41位毫秒时间戳 + 10位节点ID + 12位毫秒内序列，单节点内无锁且不重复；
+ * 每个线程一次CAS领取一段连续序列，减少高并发下的CAS竞争；
+ * 时钟回拨超过可借用范围时最多等待 seckill.order.clock-wait-ms，仍未追上则抛出 IllegalStateException
+ */
+@Component
+public class OrderIdGenerator {
+
+    // 自定义纪元 2024-01-01 00:00:00 UTC
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    // 逻辑时间戳最多领先系统时钟的毫秒数，超过后等待时钟追上，避免重启后与已发ID冲突
+    private static final long MAX_BORROW_MILLIS = 2000;
+
+    // 订单号固定宽度：前缀 + 19位十进制（long最大值的位数）
+    private static final String PREFIX = "SK";
+    private static final int DIGITS = 19;
+
+    private final long nodeBits;
+    private final int segmentSize;
+    private final LongSupplier clock;
+    private final long maxWaitNanos;
+
+    // 高位为逻辑时间戳，低12位为该毫秒内已分配的序列
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicLong clockRollbacks = new AtomicLong();
+    private final ThreadLocal<Segment> segments = ThreadLocal.withInitial(Segment::new);
+
+    @Autowired
+    public OrderIdGenerator(@Value("${seckill.order.node-id:1}") long nodeId,
+                            @Value("${seckill.order.id-segment-size:16}") int segmentSize,
+                            @Value("${seckill.order.clock-wait-ms:1000}") long maxWaitMillis) {
+        this(nodeId, segmentSize, System::currentTimeMillis, maxWaitMillis);
+    }
+
+    public OrderIdGenerator(long nodeId, int segmentSize, LongSupplier clock) {
+        this(nodeId, segmentSize, clock, 1000);
+    }
+
+    public OrderIdGenerator(long nodeId, int segmentSize, LongSupplier clock, long maxWaitMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID超出范围[0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.segmentSize = (int) Math.max(1, Math.min(segmentSize, SEQUENCE_MASK + 1));
+        this.clock = clock;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+    }
+
+    /**
+     * 生成下一个订单ID
+     * @throws IllegalStateException 时钟回拨超过可借用范围且等待期间未追上
+     */
+    public long nextId() {
+        Segment segment = segments.get();
+        if (segment.next >= segment.end) {
+            claimSegment(segment);
+        }
+        return segment.next++;
+    }
+
+    /**
+     * 生成固定宽度的订单号，如 SK0000123456789012345
+     */
+    public String nextOrderNo() {
+        return format(nextId());
+    }
+
+    /**
+     * 时钟回拨次数（回拨期间沿用上次的逻辑时间戳继续分配）
+     */
+    public long getClockRollbacks() {
+        return clockRollbacks.get();
+    }
+
+    /**
+     * 将ID编码为固定宽度订单号，不使用String.format
+     */
+    public static String format(long id) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + (id % 10));
+            id /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 一次CAS领取当前毫秒内的一段连续序列；
+     * 当前毫秒序列用完或时钟回拨时，借用下一个逻辑毫秒，保证ID单调递增，
+     * 借用超过 MAX_BORROW_MILLIS 时每次休眠1毫秒等待时钟追上，超过最长等待时间后放弃
+     */
+    private void claimSegment(Segment segment) {
+        long waitStart = 0;
+        while (true) {
+            long prev = state.get();
+            long lastTimestamp = prev >>> SEQUENCE_BITS;
+            long used = prev & SEQUENCE_MASK;
+            long now = clock.getAsLong() - EPOCH;
+
+            long timestamp;
+            long start;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                start = 0;
+            } else if (used < SEQUENCE_MASK) {
+                timestamp = lastTimestamp;
+                start = used + 1;
+            } else if (lastTimestamp + 1 - now <= MAX_BORROW_MILLIS) {
+                timestamp = lastTimestamp + 1;
+                start = 0;
+            } else {
+                long waited = System.nanoTime();
+                if (waitStart == 0) {
+                    waitStart = waited;
+                } else if (waited - waitStart >= maxWaitNanos) {
+                    throw new IllegalStateException("时钟回拨" + (lastTimestamp - now) + "毫秒，等待"
+                            + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "毫秒后仍未追上，暂停生成订单号");
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            long end = Math.min(start + segmentSize, SEQUENCE_MASK + 1);
+            long next = (timestamp << SEQUENCE_BITS) | (end - 1);
+            if (state.compareAndSet(prev, next)) {
+                if (now < lastTimestamp) {
+                    clockRollbacks.incrementAndGet();
+                }
+                long base = (timestamp << TIMESTAMP_SHIFT) | nodeBits;
+                segment.next = base + start;
+                segment.end = base + end;
+                return;
+            }
+        }
+    }
+
+    private static final class Segment {
+        long next;
+        long end;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillOrder;
+
+/**
+ * 订单落库失败事件
+ * 异步落库重试耗尽后发布，此时库存已扣减、客户端已收到成功响应，由下单服务归还库存和购买资格
+ */
+public class OrderPersistFailedEvent {
+
+    private final SeckillOrder order;
+
+    public OrderPersistFailedEvent(SeckillOrder order) {
+        this.order = order;
+    }
+
+    // Getters
+    public SeckillOrder getOrder() { return order; }
+}
@@ -0,0 +1,251 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 排队下单（票据模式）
+ * 下单请求只做内存校验并入队，立即返回票据ID；后台工作线程按队列顺序执行下单，
+ * 客户端通过状态接口轮询或SSE订阅获取最终结果，突发流量由队列吸收而不是占用Tomcat线程；
+ * 同一用户对同一商品重复提交时返回已有票据，队列已满时直接拒绝。
+ * 排队中的票据保存在独立的表中，不受内存存储容量淘汰影响，数量受队列容量限制；
+ * 下单完成后票据移入内存存储，按过期时间和容量淘汰
+ */
+@Service
+public class OrderTicketService {
+
+    public enum TicketStatus {
+        PENDING, SUCCESS, FAILED
+    }
+
+    private static final String TICKET_PREFIX = "ticket:";
+    private static final String USER_PREFIX = "ticket-user:";
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+
+    @Autowired
+    private SoldOutGate soldOutGate;
+
+    @Autowired
+    private ProductCodeFilter productCodeFilter;
+
+    @Autowired
+    private AdmissionGate admissionGate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.ticket.workers:16}")
+    private int workers;
+
+    @Value("${seckill.ticket.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${seckill.ticket.ttl-ms:300000}")
+    private long ticketTtlMillis;
+
+    @Value("${seckill.ticket.max-entries:200000}")
+    private int maxEntries;
+
+    private final Map<String, OrderTicket> pendingTickets = new ConcurrentHashMap<>();
+    private ExpiringMemoryStore tickets;
+    private ThreadPoolExecutor worker;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        tickets = new ExpiringMemoryStore(maxEntries, 100);
+        AtomicInteger sequence = new AtomicInteger();
+        worker = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "order-ticket-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("seckill.ticket.queue", worker, executor -> executor.getQueue().size())
+                .description("排队中的下单票据数")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("seckill.ticket.rejected")
+                .description("队列已满被拒绝的下单请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交下单请求；校验失败时返回已完成的票据，队列已满时返回null
+     */
+    public OrderTicket submit(Long userId, String productCode, Integer quantity) {
+        if (userId == null || productCode == null || quantity == null || quantity <= 0) {
+            return completed(userId, productCode, SeckillError.INVALID_PARAM.result());
+        }
+        if (quantity > 1) {
+            return completed(userId, productCode, SeckillError.LIMIT_EXCEEDED.result());
+        }
+        if (soldOutGate.isSoldOut(productCode)) {
+            return completed(userId, productCode, SeckillError.SOLD_OUT.result());
+        }
+        if (!productCodeFilter.mightContain(productCode)) {
+            return completed(userId, productCode, SeckillError.PRODUCT_NOT_FOUND.result());
+        }
+
+        // 先保存票据再占用用户映射，并发的重复提交读到映射时一定能查到票据
+        String ticketId = String.valueOf(orderIdGenerator.nextId());
+        OrderTicket ticket = new OrderTicket(ticketId, userId, productCode);
+        String userKey = userKey(ticket);
+        pendingTickets.put(ticketId, ticket);
+        while (!tickets.setIfAbsent(userKey, ticketId, ticketTtlMillis)) {
+            String existingId = tickets.get(userKey);
+            OrderTicket existing = findTicket(existingId);
+            if (existing != null) {
+                pendingTickets.remove(ticketId);
+                return existing;
+            }
+            // 映射指向的票据已过期或被淘汰，删除后重新占用
+            if (existingId != null) {
+                tickets.compareAndDelete(userKey, existingId);
+            }
+        }
+
+        AdmissionGate.Permit permit = admissionGate.tryAcquire(productCode);
+        if (permit == null) {
+            discard(ticket);
+            return completed(userId, productCode, SeckillError.TRY_LATER.result());
+        }
+        try {
+            worker.execute(() -> process(ticket, quantity, permit));
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            discard(ticket);
+            rejectedCounter.increment();
+            return null;
+        }
+        return ticket;
+    }
+
+    /**
+     * 查询票据，只返回属于该用户的票据
+     */
+    public OrderTicket getTicket(String ticketId, Long userId) {
+        OrderTicket ticket = findTicket(ticketId);
+        return ticket != null && ticket.getUserId().equals(userId) ? ticket : null;
+    }
+
+    private OrderTicket findTicket(String ticketId) {
+        if (ticketId == null) {
+            return null;
+        }
+        OrderTicket pending = pendingTickets.get(ticketId);
+        return pending != null ? pending : tickets.getObject(TICKET_PREFIX + ticketId, OrderTicket.class);
+    }
+
+    /**
+     * 未入队的票据从排队表和用户映射中移除
+     */
+    private void discard(OrderTicket ticket) {
+        pendingTickets.remove(ticket.getTicketId());
+        tickets.compareAndDelete(userKey(ticket), ticket.getTicketId());
+    }
+
+    private static String userKey(OrderTicket ticket) {
+        return USER_PREFIX + ticket.getProductCode() + ":" + ticket.getUserId();
+    }
+
+    private void process(OrderTicket ticket, int quantity, AdmissionGate.Permit permit) {
+        SeckillResult result;
+        try {
+            result = seckillService.doSeckill(ticket.getUserId(), ticket.getProductCode(), quantity);
+        } catch (Exception e) {
+            System.err.println("票据下单异常 - 票据:" + ticket.getTicketId() + ", 原因:" + e.getMessage());
+            result = SeckillError.SYSTEM_ERROR.result();
+        } finally {
+            permit.release();
+        }
+        ticket.complete(result);
+        // 先写入内存存储再移出排队表，查询不会落空
+        tickets.setObject(TICKET_PREFIX + ticket.getTicketId(), ticket, ticketTtlMillis);
+        pendingTickets.remove(ticket.getTicketId());
+        if (result.isSuccess()) {
+            // 排队时间较长时用户映射可能先于票据过期，与票据对齐
+            tickets.compareAndExpire(userKey(ticket), ticket.getTicketId(), ticketTtlMillis);
+        } else {
+            // 下单失败后允许用户重新提交
+            tickets.compareAndDelete(userKey(ticket), ticket.getTicketId());
+        }
+    }
+
+    /**
+     * 校验未通过的请求不入队，返回已完成的票据（不保存）
+     */
+    private OrderTicket completed(Long userId, String productCode, SeckillResult result) {
+        OrderTicket ticket = new OrderTicket(null, userId, productCode);
+        ticket.complete(result);
+        return ticket;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+        tickets.shutdown();
+    }
+
+    /**
+     * 下单票据
+     */
+    public static class OrderTicket {
+        private final String ticketId;
+        private final Long userId;
+        private final String productCode;
+        private final CompletableFuture<SeckillResult> result = new CompletableFuture<>();
+
+        OrderTicket(String ticketId, Long userId, String productCode) {
+            this.ticketId = ticketId;
+            this.userId = userId;
+            this.productCode = productCode;
+        }
+
+        void complete(SeckillResult seckillResult) {
+            result.complete(seckillResult);
+        }
+
+        public TicketStatus getStatus() {
+            SeckillResult current = result.getNow(null);
+            if (current == null) {
+                return TicketStatus.PENDING;
+            }
+            return current.isSuccess() ? TicketStatus.SUCCESS : TicketStatus.FAILED;
+        }
+
+        /**
+         * 结果完成时回调；已完成时立即在当前线程回调
+         */
+        public void onComplete(Consumer<SeckillResult> callback) {
+            result.thenAccept(callback);
+        }
+
+        // Getters
+        public String getTicketId() { return ticketId; }
+        public Long getUserId() { return userId; }
+        public String getProductCode() { return productCode; }
+        public SeckillResult getResult() { return result.getNow(null); }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillOrder;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单异步落库服务
+ * 下单事务提交后订单进入有界队列，由后台线程按批次写入数据库，
+ * 应用关闭时会把队列中剩余订单全部写完；
+ * 批量写入失败时逐条重试，重试耗尽后发布 OrderPersistFailedEvent 由下单服务归还库存，
+ * 归还也失败的订单计入死信指标并输出完整订单信息以便人工补单
+ */
+@Service
+public class OrderWriteBehindService {
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${seckill.order.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${seckill.order.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${seckill.order.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${seckill.order.write-behind.flush-interval-ms:20}")
+    private long flushIntervalMillis;
+
+    @Value("${seckill.order.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMillis;
+
+    @Value("${seckill.order.write-behind.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${seckill.order.write-behind.retry-backoff-ms:50}")
+    private long retryBackoffMillis;
+
+    // 队列本身不限长，容量由槽位信号量控制：事务提交前占槽，提交后入队
+    private final BlockingQueue<SeckillOrder> queue = new LinkedBlockingQueue<>();
+    private Semaphore slots;
+
+    // 已占槽但尚未落库的 (商品, 用户)，数据库查不到这些订单，重复购买检查需要一并判断
+    private final Set<String> pendingBuyers = ConcurrentHashMap.newKeySet();
+
+    private Timer flushTimer;
+    private Counter flushedCounter;
+    private Counter failedCounter;
+    private Counter compensatedCounter;
+    private Counter deadLetterCounter;
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        slots = new Semaphore(queueCapacity);
+        Gauge.builder("seckill.order.write-behind.queue.size", queue, BlockingQueue::size)
+                .description("待落库订单数")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("seckill.order.write-behind.flush")
+                .description("订单批量落库耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        flushedCounter = meterRegistry.counter("seckill.order.write-behind.flushed");
+        failedCounter = meterRegistry.counter("seckill.order.write-behind.failed");
+        compensatedCounter = meterRegistry.counter("seckill.order.write-behind.compensated");
+        deadLetterCounter = meterRegistry.counter("seckill.order.write-behind.dead-letter");
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "order-write-behind");
+        drainer.start();
+        System.out.println("订单异步落库已启用，队列容量:" + queueCapacity + ", 批次大小:" + batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前待落库订单数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 用户是否有已提交（或正在提交）但尚未落库的订单
+     */
+    public boolean hasPendingOrder(Long userId, Long productId) {
+        return enabled && pendingBuyers.contains(buyerKey(productId, userId));
+    }
+
+    /**
+     * 为订单占用队列槽位，当前事务提交后订单入队，回滚则归还槽位
+     * @return 队列已满时返回false
+     */
+    public boolean enqueueAfterCommit(SeckillOrder order) {
+        try {
+            if (!slots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        String buyerKey = buyerKey(order.getProductId(), order.getUserId());
+        pendingBuyers.add(buyerKey);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.add(order);
+            return true;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue.add(order);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    pendingBuyers.remove(buyerKey);
+                    slots.release();
+                }
+            }
+        });
+        return true;
+    }
+
+    private void drainLoop() {
+        List<SeckillOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SeckillOrder first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续把剩余订单写完
+                running = false;
+            } finally {
+                for (SeckillOrder order : batch) {
+                    pendingBuyers.remove(buyerKey(order.getProductId(), order.getUserId()));
+                }
+                slots.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<SeckillOrder> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(batch));
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            System.err.println("订单批量落库失败，逐条重试: " + e.getMessage());
+            for (SeckillOrder order : batch) {
+                saveSingle(order);
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 逐条写入，失败时退避重试；重试耗尽后补偿
+     */
+    private void saveSingle(SeckillOrder order) {
+        Exception lastError = null;
+        for (int attempt = 1; attempt <= Math.max(1, maxAttempts); attempt++) {
+            try {
+                // 批量失败时实体可能已分配ID，清空后按新实体重新插入
+                order.setId(null);
+                transactionTemplate.executeWithoutResult(status -> orderRepository.save(order));
+                flushedCounter.increment();
+                return;
+            } catch (Exception e) {
+                lastError = e;
+                if (attempt < maxAttempts && !backoff(attempt)) {
+                    break;
+                }
+            }
+        }
+        failedCounter.increment();
+        System.err.println("订单落库失败，归还库存 - 订单号:" + order.getOrderNo() + ", 原因:" + lastError.getMessage());
+        compensate(order);
+    }
+
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            // 关闭时被中断，不再等待，直接补偿
+            running = false;
+            return false;
+        }
+    }
+
+    /**
+     * 发布落库失败事件，由下单服务归还库存和购买资格；归还失败时记为死信
+     */
+    private void compensate(SeckillOrder order) {
+        try {
+            eventPublisher.publishEvent(new OrderPersistFailedEvent(order));
+            compensatedCounter.increment();
+        } catch (Exception e) {
+            deadLetterCounter.increment();
+            System.err.println("订单落库失败且库存归还失败，需人工处理 - 订单号:" + order.getOrderNo()
+                    + ", 用户ID:" + order.getUserId() + ", 商品ID:" + order.getProductId()
+                    + ", 数量:" + order.getQuantity() + ", 金额:" + order.getTotalAmount()
+                    + ", 原因:" + e.getMessage());
+        }
+    }
+
+    private static String buyerKey(Long productId, Long userId) {
+        return productId + ":" + userId;
+    }
+
+    /**
+     * 应用关闭时停止接收并写完队列中剩余订单
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            System.err.println("应用关闭时仍有订单未落库: " + queue.size());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+/**
+ * 悲观锁扣减策略
+ * SELECT ... FOR UPDATE 锁定商品行后再扣减，事务提交时释放行锁
+ */
+@Component
+@Transactional
+public class PessimisticLockStockDeduction implements StockDeductionStrategy {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public String getName() {
+        return "pessimistic";
+    }
+
+    @Override
+    public boolean deduct(SeckillProduct product, int quantity) {
+        SeckillProduct locked = entityManager.find(SeckillProduct.class, product.getId());
+        if (locked == null) {
+            return false;
+        }
+        // 持久化上下文中的实体可能已过期，加锁的同时重新加载最新库存
+        entityManager.refresh(locked, LockModeType.PESSIMISTIC_WRITE);
+        if (!locked.deductStock(quantity)) {
+            return false;
+        }
+        locked.setVersion(locked.getVersion() + 1);
+        entityManager.flush();
+        return true;
+    }
+}
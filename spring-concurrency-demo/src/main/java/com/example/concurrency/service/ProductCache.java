@@ -0,0 +1,658 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 商品两级缓存
+ * 静态信息（名称、价格、秒杀时间）缓存在有容量和过期上限的本地存储(L1)和Redis(L2)中；
+ * 可用库存单独处理：账本已预热时直接读账本，否则按很短的过期时间缓存在本地；
+ * 缓存未命中时同一商品只有一个加载者，热点商品在过期前按概率提前刷新；
+ * 商品变更在事务提交后失效本地和Redis缓存，开启广播时通过Redis频道通知其他节点；
+ * 每次失效推进商品的版本号，加载者在读取前记录版本号，写入缓存后版本号已变化时撤销写入，
+ * 提交前读到的旧数据不会在失效之后留在L1/L2中
+ */
+@Component
+public class ProductCache {
+
+    public static final String INVALIDATION_CHANNEL = "seckill:product:invalidate";
+
+    private static final String REDIS_KEY_PREFIX = "seckill:product:info:";
+    private static final String INFO_PREFIX = "info:";
+    private static final String STOCK_PREFIX = "stock:";
+    private static final String REFRESH_PREFIX = "refresh:";
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ProductCodeFilter productCodeFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.product-cache.local.max-entries:10000}")
+    private int localMaxEntries;
+
+    @Value("${seckill.product-cache.local.ttl-ms:30000}")
+    private long localTtlMillis;
+
+    @Value("${seckill.product-cache.redis.ttl-seconds:600}")
+    private long redisTtlSeconds;
+
+    @Value("${seckill.product-cache.negative-ttl-ms:5000}")
+    private long negativeTtlMillis;
+
+    @Value("${seckill.product-cache.stock-ttl-ms:1000}")
+    private long stockTtlMillis;
+
+    @Value("${seckill.product-batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${seckill.product-cache.broadcast.enabled:false}")
+    private boolean broadcastEnabled;
+
+    @Value("${seckill.product-cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${seckill.product-cache.load-timeout-ms:3000}")
+    private long loadTimeoutMillis;
+
+    private ExpiringMemoryStore localStore;
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100), runnable -> {
+                Thread thread = new Thread(runnable, "product-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void init() {
+        localStore = new ExpiringMemoryStore(localMaxEntries, 100);
+        requestCounter(localHits, "local", "hit");
+        requestCounter(localMisses, "local", "miss");
+        requestCounter(redisHits, "redis", "hit");
+        requestCounter(redisMisses, "redis", "miss");
+        FunctionCounter.builder("seckill.product.cache.coalesced", coalesced, LongAdder::doubleValue)
+                .description("等待其他加载者结果的请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("seckill.product.cache.early-refresh", earlyRefreshes, LongAdder::doubleValue)
+                .description("过期前提前刷新的次数")
+                .register(meterRegistry);
+        Gauge.builder("seckill.product.cache.hit.ratio", this, ProductCache::hitRatio)
+                .description("商品缓存命中率（L1或L2命中）")
+                .register(meterRegistry);
+        loadTimer = Timer.builder("seckill.product.cache.load")
+                .description("缓存未命中时从数据库加载商品的耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void requestCounter(LongAdder adder, String level, String result) {
+        FunctionCounter.builder("seckill.product.cache.requests", adder, LongAdder::doubleValue)
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询商品：静态信息来自缓存，可用库存单独获取
+     */
+    public Optional<SeckillProduct> get(String productCode) {
+        ProductInfo info = getInfo(productCode);
+        if (info == null) {
+            return Optional.empty();
+        }
+        return Optional.of(info.toProduct(availableStock(info)));
+    }
+
+    /**
+     * 批量查询商品，按请求顺序返回存在的商品（重复编码只返回一次）
+     * 依次查询L1、一次Redis批量获取、一次 IN 查询；未预热账本的库存也用一次 IN 查询获取
+     */
+    public List<SeckillProduct> getAll(List<String> productCodes) {
+        if (productCodes.size() > batchMaxSize) {
+            throw new IllegalArgumentException("一次最多查询" + batchMaxSize + "个商品");
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String code : productCodes) {
+            if (code != null && productCodeFilter.mightContain(code)) {
+                requested.add(code);
+            }
+        }
+        Map<String, ProductInfo> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        // 1. L1
+        for (String code : requested) {
+            CachedInfo cached = localStore.getObject(INFO_PREFIX + code, CachedInfo.class);
+            if (cached != null) {
+                localHits.increment();
+                if (cached.info != null) {
+                    found.put(code, cached.info);
+                }
+            } else {
+                localMisses.increment();
+                misses.add(code);
+            }
+        }
+
+        // 2. L2 批量获取（先记录版本号，加载期间失效的商品不写入缓存）
+        Map<String, Long> loadEpochs = new HashMap<>();
+        misses.forEach(code -> loadEpochs.put(code, epoch(code)));
+        if (!misses.isEmpty()) {
+            List<String> keys = new ArrayList<>(misses.size());
+            misses.forEach(code -> keys.add(REDIS_KEY_PREFIX + code));
+            List<String> values = redisService.mget(keys);
+            long start = System.nanoTime();
+            List<String> stillMissing = new ArrayList<>();
+            for (int i = 0; i < misses.size(); i++) {
+                ProductInfo info = values != null && values.get(i) != null ? decode(misses.get(i), values.get(i)) : null;
+                if (info != null) {
+                    redisHits.increment();
+                    populate(info, start, loadEpochs.get(misses.get(i)), false);
+                    found.put(info.getProductCode(), info);
+                } else {
+                    redisMisses.increment();
+                    stillMissing.add(misses.get(i));
+                }
+            }
+            misses = stillMissing;
+        }
+
+        // 3. 数据库 IN 查询，顺带缓存查到的库存
+        Map<String, Integer> loadedStock = new HashMap<>();
+        if (!misses.isEmpty()) {
+            long start = System.nanoTime();
+            List<SeckillProduct> loaded;
+            try {
+                loaded = productRepository.findByProductCodeIn(misses);
+            } finally {
+                loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            for (SeckillProduct product : loaded) {
+                ProductInfo info = ProductInfo.from(product);
+                populate(info, start, loadEpochs.get(info.getProductCode()), true);
+                found.put(info.getProductCode(), info);
+                loadedStock.put(info.getProductCode(), product.getAvailableStock());
+                localStore.setObject(STOCK_PREFIX + info.getProductCode(), product.getAvailableStock(), stockTtlMillis);
+            }
+            for (String code : misses) {
+                if (!found.containsKey(code)) {
+                    populateMissing(code, loadEpochs.get(code));
+                }
+            }
+        }
+
+        // 4. 库存：账本 > 刚查到的 > 短期缓存 > 一次 IN 查询
+        Map<Long, ProductInfo> needStock = new HashMap<>();
+        for (ProductInfo info : found.values()) {
+            String code = info.getProductCode();
+            if (stockLedger.available(code) < 0 && !loadedStock.containsKey(code)) {
+                Integer cached = localStore.getObject(STOCK_PREFIX + code, Integer.class);
+                if (cached != null) {
+                    loadedStock.put(code, cached);
+                } else {
+                    needStock.put(info.getId(), info);
+                }
+            }
+        }
+        if (!needStock.isEmpty()) {
+            for (Object[] row : productRepository.findAvailableStocks(needStock.keySet())) {
+                ProductInfo info = needStock.get((Long) row[0]);
+                Integer stock = (Integer) row[1];
+                loadedStock.put(info.getProductCode(), stock);
+                localStore.setObject(STOCK_PREFIX + info.getProductCode(), stock, stockTtlMillis);
+            }
+        }
+
+        List<SeckillProduct> result = new ArrayList<>(found.size());
+        for (String code : requested) {
+            ProductInfo info = found.get(code);
+            if (info != null) {
+                int ledger = stockLedger.available(code);
+                result.add(info.toProduct(ledger >= 0 ? ledger : loadedStock.getOrDefault(code, 0)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询商品静态信息，依次查询L1、L2和数据库
+     * 同一商品同时只有一个加载者，其他请求等待其结果；
+     * L1命中时按XFetch算法以随过期临近而增大的概率提前在后台刷新；
+     * 编码过滤器判定不存在的商品直接返回，数据库中不存在的商品短时间缓存为“不存在”
+     */
+    public ProductInfo getInfo(String productCode) {
+        if (!productCodeFilter.mightContain(productCode)) {
+            return null;
+        }
+        String key = INFO_PREFIX + productCode;
+        CachedInfo cached = localStore.getObject(key, CachedInfo.class);
+        if (cached != null) {
+            localHits.increment();
+            if (cached.info != null && shouldRefreshEarly(key, cached.loadMillis)) {
+                refreshAsync(productCode);
+            }
+            return cached.info;
+        }
+        localMisses.increment();
+        return singleFlight(key, () -> loadThroughRedis(productCode));
+    }
+
+    private ProductInfo loadThroughRedis(String productCode) {
+        // 上一个加载者可能刚写入L1
+        CachedInfo cached = localStore.getObject(INFO_PREFIX + productCode, CachedInfo.class);
+        if (cached != null) {
+            return cached.info;
+        }
+        long epoch = epoch(productCode);
+        long start = System.nanoTime();
+        ProductInfo info = readRedis(productCode);
+        if (info != null) {
+            redisHits.increment();
+            populate(info, start, epoch, false);
+            return info;
+        }
+        redisMisses.increment();
+
+        info = load(productCode);
+        if (info != null) {
+            populate(info, start, epoch, true);
+        } else {
+            // 负缓存：商品新增时随变更事件一起失效
+            populateMissing(productCode, epoch);
+        }
+        return info;
+    }
+
+    /**
+     * XFetch：剩余存活时间 <= 加载耗时 × beta × -ln(随机数) 时提前刷新
+     */
+    private boolean shouldRefreshEarly(String key, long loadMillis) {
+        long remaining = localStore.ttlMillis(key);
+        if (remaining < 0) {
+            return false;
+        }
+        double gap = Math.max(1, loadMillis) * earlyRefreshBeta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return remaining <= gap;
+    }
+
+    private void refreshAsync(String productCode) {
+        String key = REFRESH_PREFIX + productCode;
+        if (inFlight.containsKey(key)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                singleFlight(key, () -> {
+                    long epoch = epoch(productCode);
+                    long start = System.nanoTime();
+                    ProductInfo info = load(productCode);
+                    if (info != null) {
+                        populate(info, start, epoch, true);
+                    }
+                    return info;
+                });
+                earlyRefreshes.increment();
+            } catch (RuntimeException e) {
+                System.err.println("商品缓存提前刷新失败: " + productCode + ", 原因:" + e.getMessage());
+            }
+        });
+    }
+
+    private void warmStockAsync(String productCode) {
+        if (inFlight.containsKey(STOCK_PREFIX + productCode)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                ProductInfo info = getInfo(productCode);
+                if (info != null) {
+                    availableStock(info);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("商品库存预热失败: " + productCode + ", 原因:" + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 加载结果写入缓存（可选写入L2）；加载期间商品已失效时不写入，
+     * 写入后复查版本号，失效恰好发生在复查之前时撤销本次写入
+     */
+    private void populate(ProductInfo info, long loadStartNanos, long epoch, boolean toRedis) {
+        String productCode = info.getProductCode();
+        if (epoch(productCode) != epoch) {
+            return;
+        }
+        if (toRedis) {
+            writeRedis(info);
+        }
+        putLocal(info, loadStartNanos);
+        if (epoch(productCode) != epoch) {
+            localStore.delete(INFO_PREFIX + productCode);
+            if (toRedis) {
+                redisService.delete(REDIS_KEY_PREFIX + productCode);
+            }
+        }
+    }
+
+    private void populateMissing(String productCode, long epoch) {
+        if (epoch(productCode) != epoch) {
+            return;
+        }
+        localStore.setObject(INFO_PREFIX + productCode, new CachedInfo(null, 0), negativeTtlMillis);
+        if (epoch(productCode) != epoch) {
+            localStore.delete(INFO_PREFIX + productCode);
+        }
+    }
+
+    private long epoch(String productCode) {
+        AtomicLong epoch = epochs.get(productCode);
+        return epoch != null ? epoch.get() : 0L;
+    }
+
+    /**
+     * 写入L1，过期时间加±10%抖动，避免同时写入的热点商品同时过期
+     */
+    private void putLocal(ProductInfo info, long loadStartNanos) {
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStartNanos);
+        long ttl = (long) (localTtlMillis * (0.9 + 0.2 * ThreadLocalRandom.current().nextDouble()));
+        localStore.setObject(INFO_PREFIX + info.getProductCode(), new CachedInfo(info, loadMillis), ttl);
+    }
+
+    /**
+     * 同一key同时只执行一次加载，其他调用方等待同一结果
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return (T) existing.get(loadTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待商品加载被中断: " + key, e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("等待商品加载超时: " + key);
+            }
+        }
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 只读内存的可用库存（准入控制使用）：账本已预热时读账本，否则读本地缓存的数据库库存；
+     * 都未命中时返回-1，不访问Redis和数据库，在后台线程中预热本地库存缓存
+     */
+    public int cachedAvailableStock(String productCode) {
+        int ledger = stockLedger.available(productCode);
+        if (ledger >= 0) {
+            return ledger;
+        }
+        Integer cached = localStore.getObject(STOCK_PREFIX + productCode, Integer.class);
+        if (cached != null) {
+            return cached;
+        }
+        if (productCodeFilter.mightContain(productCode)) {
+            warmStockAsync(productCode);
+        }
+        return -1;
+    }
+
+    /**
+     * 可用库存：优先读内存账本，未预热时读短期本地缓存
+     */
+    public int availableStock(ProductInfo info) {
+        int ledger = stockLedger.available(info.getProductCode());
+        if (ledger >= 0) {
+            return ledger;
+        }
+        String key = STOCK_PREFIX + info.getProductCode();
+        Integer cached = localStore.getObject(key, Integer.class);
+        if (cached != null) {
+            return cached;
+        }
+        return singleFlight(key, () -> {
+            Integer current = localStore.getObject(key, Integer.class);
+            if (current != null) {
+                return current;
+            }
+            int stock = productRepository.findAvailableStock(info.getId()).orElse(0);
+            localStore.setObject(key, stock, stockTtlMillis);
+            return stock;
+        });
+    }
+
+    /**
+     * 商品变更提交后失效缓存；无事务时立即执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        String productCode = event.getProductCode();
+        evictLocal(productCode, event.isStockOnly());
+        if (!event.isStockOnly()) {
+            redisService.delete(REDIS_KEY_PREFIX + productCode);
+        }
+        if (broadcastEnabled) {
+            redisService.publish(INVALIDATION_CHANNEL, (event.isStockOnly() ? STOCK_PREFIX : INFO_PREFIX) + productCode);
+        }
+    }
+
+    /**
+     * 处理其他节点广播的失效消息，格式为 info:{code} 或 stock:{code}
+     */
+    public void onRemoteInvalidation(String message) {
+        if (message.startsWith(STOCK_PREFIX)) {
+            evictLocal(message.substring(STOCK_PREFIX.length()), true);
+        } else if (message.startsWith(INFO_PREFIX)) {
+            evictLocal(message.substring(INFO_PREFIX.length()), false);
+        }
+    }
+
+    private void evictLocal(String productCode, boolean stockOnly) {
+        localStore.delete(STOCK_PREFIX + productCode);
+        if (!stockOnly) {
+            // 先推进版本号再删除，进行中的加载者不会把旧数据写回
+            epochs.computeIfAbsent(productCode, code -> new AtomicLong()).incrementAndGet();
+            localStore.delete(INFO_PREFIX + productCode);
+        }
+    }
+
+    private ProductInfo load(String productCode) {
+        long start = System.nanoTime();
+        try {
+            return productRepository.findByProductCode(productCode).map(ProductInfo::from).orElse(null);
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ProductInfo readRedis(String productCode) {
+        String json = redisService.get(REDIS_KEY_PREFIX + productCode);
+        return json != null ? decode(productCode, json) : null;
+    }
+
+    private ProductInfo decode(String productCode, String json) {
+        try {
+            return objectMapper.readValue(json, ProductInfo.class);
+        } catch (JsonProcessingException e) {
+            System.err.println("商品缓存反序列化失败: " + productCode + ", 原因:" + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(ProductInfo info) {
+        try {
+            redisService.set(REDIS_KEY_PREFIX + info.getProductCode(), objectMapper.writeValueAsString(info), redisTtlSeconds);
+        } catch (JsonProcessingException e) {
+            System.err.println("商品缓存序列化失败: " + info.getProductCode() + ", 原因:" + e.getMessage());
+        }
+    }
+
+    private double hitRatio() {
+        double requests = localHits.sum() + localMisses.sum();
+        return requests == 0 ? 0 : (localHits.sum() + redisHits.sum()) / requests;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        localStore.shutdown();
+    }
+
+    /**
+     * L1条目：静态信息及其加载耗时（用于提前刷新），info为null表示商品不存在
+     */
+    private static final class CachedInfo {
+        final ProductInfo info;
+        final long loadMillis;
+
+        CachedInfo(ProductInfo info, long loadMillis) {
+            this.info = info;
+            this.loadMillis = loadMillis;
+        }
+    }
+
+    /**
+     * 商品静态信息（不含可用库存）
+     * 版本号和更新时间为加载时的快照，库存扣减不会刷新缓存，展示值可能落后于数据库
+     */
+    public static class ProductInfo {
+        private Long id;
+        private String productCode;
+        private String productName;
+        private Integer totalStock;
+        private Integer seckillPrice;
+        private Integer originalPrice;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private Boolean active;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private Integer version;
+
+        public static ProductInfo from(SeckillProduct product) {
+            ProductInfo info = new ProductInfo();
+            info.id = product.getId();
+            info.productCode = product.getProductCode();
+            info.productName = product.getProductName();
+            info.totalStock = product.getTotalStock();
+            info.seckillPrice = product.getSeckillPrice();
+            info.originalPrice = product.getOriginalPrice();
+            info.startTime = product.getStartTime();
+            info.endTime = product.getEndTime();
+            info.active = product.getActive();
+            info.createdAt = product.getCreatedAt();
+            info.updatedAt = product.getUpdatedAt();
+            info.version = product.getVersion();
+            return info;
+        }
+
+        /**
+         * 组装为商品对象（游离状态，仅用于展示）
+         */
+        public SeckillProduct toProduct(int availableStock) {
+            SeckillProduct product = new SeckillProduct(productCode, productName, totalStock,
+                    seckillPrice, originalPrice, startTime, endTime);
+            product.setId(id);
+            product.setAvailableStock(availableStock);
+            product.setActive(active);
+            product.setCreatedAt(createdAt);
+            product.setUpdatedAt(updatedAt);
+            product.setVersion(version);
+            return product;
+        }
+
+        // Getters and Setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getProductCode() { return productCode; }
+        public void setProductCode(String productCode) { this.productCode = productCode; }
+        public String getProductName() { return productName; }
+        public void setProductName(String productName) { this.productName = productName; }
+        public Integer getTotalStock() { return totalStock; }
+        public void setTotalStock(Integer totalStock) { this.totalStock = totalStock; }
+        public Integer getSeckillPrice() { return seckillPrice; }
+        public void setSeckillPrice(Integer seckillPrice) { this.seckillPrice = seckillPrice; }
+        public Integer getOriginalPrice() { return originalPrice; }
+        public void setOriginalPrice(Integer originalPrice) { this.originalPrice = originalPrice; }
+        public LocalDateTime getStartTime() { return startTime; }
+        public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+        public LocalDateTime getEndTime() { return endTime; }
+        public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+        public Boolean getActive() { return active; }
+        public void setActive(Boolean active) { this.active = active; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+        public Integer getVersion() { return version; }
+        public void setVersion(Integer version) { this.version = version; }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.concurrency.service;
+
+/**
+ * 商品变更事件
+ * 商品信息或库存变化后发布，由商品缓存在事务提交后失效本地和Redis缓存
+ */
+public class ProductChangedEvent {
+
+    private final String productCode;
+    private final boolean stockOnly;
+
+    public ProductChangedEvent(String productCode, boolean stockOnly) {
+        this.productCode = productCode;
+        this.stockOnly = stockOnly;
+    }
+
+    // Getters
+    public String getProductCode() { return productCode; }
+    public boolean isStockOnly() { return stockOnly; }
+}
@@ -0,0 +1,178 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.repository.SeckillProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 商品编码过滤器（布隆过滤器）
+ * 包含全部有效商品编码，不存在的编码在内存中直接拒绝，不再查询缓存和数据库；
+ * 可能误判存在（由负缓存兜底），不会误判不存在；
+ * 启动时全量构建，之后商品变更提交时只加入变更的编码，加入的编码超过容量时才重新全量构建
+ */
+@Component
+public class ProductCodeFilter {
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.product-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seckill.product-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private Counter rejectedCounter;
+
+    // 重建期间提交的变更编码，重建完成时补入新过滤器，避免扫描之后新增的商品丢失
+    private final Object publishLock = new Object();
+    private Set<String> addedDuringRebuild;
+
+    @PostConstruct
+    public void init() {
+        rejectedCounter = Counter.builder("seckill.product.filter.rejected")
+                .description("商品编码过滤器拒绝的请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动完成后从数据库构建过滤器，构建前不做过滤
+     * 重建串行执行；扫描开始后提交的变更编码在发布前补入，旧的扫描结果不会覆盖新商品
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (publishLock) {
+            addedDuringRebuild = new HashSet<>();
+        }
+        List<String> codes = productRepository.findAllProductCodes();
+        BloomFilter rebuilt = new BloomFilter(Math.max(1024, codes.size() * 2), falsePositiveRate);
+        codes.forEach(rebuilt::add);
+        synchronized (publishLock) {
+            addedDuringRebuild.forEach(rebuilt::add);
+            addedDuringRebuild = null;
+            filter = rebuilt;
+        }
+        System.out.println("商品编码过滤器重建完成，商品数:" + codes.size());
+    }
+
+    /**
+     * 商品新增或修改提交后加入编码，不扫描数据库；删除的编码仍可能通过过滤器，由负缓存兜底。
+     * 加入的编码超过过滤器容量、误判率明显上升时才全量重建
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockOnly()) {
+            return;
+        }
+        BloomFilter current;
+        synchronized (publishLock) {
+            current = filter;
+            if (current != null) {
+                current.add(event.getProductCode());
+            }
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(event.getProductCode());
+            }
+        }
+        if (current != null && current.isFull()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 商品编码是否可能存在
+     */
+    public boolean mightContain(String productCode) {
+        BloomFilter current = filter;
+        if (!enabled || current == null || current.mightContain(productCode)) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 按期望元素数和误判率确定位数组大小和哈希函数个数，使用双重哈希计算各位置
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitSize;
+        private final int hashCount;
+        private final int expectedInsertions;
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            this.expectedInsertions = expectedInsertions;
+            long size = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((size + 63) >>> 6));
+            this.bitSize = (long) bits.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        }
+
+        void add(String value) {
+            insertions.incrementAndGet();
+            long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(hash1 + i * hash2, bitSize);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0) {
+                    if (bits.compareAndSet(word, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 加入次数（含重复加入）超过期望元素数
+         */
+        boolean isFull() {
+            return insertions.get() > expectedInsertions;
+        }
+
+        boolean mightContain(String value) {
+            long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(hash1 + i * hash2, bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value, long seed) {
+            long hash = seed;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            // 混合高低位
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
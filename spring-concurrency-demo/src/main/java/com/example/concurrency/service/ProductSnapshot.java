@@ -0,0 +1,165 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 激活商品快照
+ * 把激活商品列表预先编码成完整的JSON响应体，读请求直接返回字节数组；
+ * 商品信息变更提交后下次读取时重建，库存变化最多延迟 max-age 后刷新；
+ * 内容不变时版本号和ETag保持不变，客户端可用 If-None-Match 得到304
+ */
+@Component
+public class ProductSnapshot {
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${seckill.product-snapshot.max-age-ms:1000}")
+    private long maxAgeMillis;
+
+    private volatile Snapshot current;
+    private volatile boolean dirty = true;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 当前快照；需要重建时由一个线程重建，其他线程继续返回旧快照
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            return rebuild();
+        }
+        if (dirty || System.currentTimeMillis() - snapshot.builtAt > maxAgeMillis) {
+            if (rebuildLock.tryLock()) {
+                try {
+                    return rebuildLocked();
+                } finally {
+                    rebuildLock.unlock();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 商品信息变更提交后标记重建；仅库存变化按 max-age 刷新
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isStockOnly()) {
+            dirty = true;
+        }
+    }
+
+    private Snapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            return rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot rebuildLocked() {
+        // 先清标记再查询，查询期间的变更会触发下一次重建
+        dirty = false;
+        List<SeckillProduct> products = productRepository.findByActiveTrue();
+        // 库存以内存账本为准；在JSON树上覆盖，不修改可能仍受管的实体
+        ArrayNode data = objectMapper.createArrayNode();
+        for (SeckillProduct product : products) {
+            ObjectNode node = objectMapper.valueToTree(product);
+            int ledger = stockLedger.available(product.getProductCode());
+            if (ledger >= 0) {
+                node.put("availableStock", ledger);
+            }
+            data.add(node);
+        }
+        // 与控制器的 ApiResponse 结构一致
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("message", "操作成功");
+        response.put("data", data);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("商品快照序列化失败: " + e.getMessage(), e);
+        }
+
+        Snapshot previous = current;
+        long now = System.currentTimeMillis();
+        Snapshot rebuilt = previous != null && Arrays.equals(previous.body, body)
+                ? new Snapshot(previous.version, body, previous.etag, products.size(), now)
+                : new Snapshot(previous != null ? previous.version + 1 : 1, body, etag(body), products.size(), now);
+        current = rebuilt;
+        return rebuilt;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder("\"");
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 不可变快照
+     */
+    public static class Snapshot {
+        private final long version;
+        private final byte[] body;
+        private final String etag;
+        private final int productCount;
+        private final long builtAt;
+
+        Snapshot(long version, byte[] body, String etag, int productCount, long builtAt) {
+            this.version = version;
+            this.body = body;
+            this.etag = etag;
+            this.productCount = productCount;
+            this.builtAt = builtAt;
+        }
+
+        // Getters
+        public long getVersion() { return version; }
+        public byte[] getBody() { return body; }
+        public String getEtag() { return etag; }
+        public int getProductCount() { return productCount; }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.concurrency.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Redis熔断器
+ * CLOSED：正常访问Redis，按最近N次调用的失败率判断是否熔断，连接失败立即熔断；
+ * OPEN：所有调用直接走内存降级，不再访问Redis；
+ * HALF_OPEN：后台探测成功后由探测线程连续执行若干次试探命令，全部成功才恢复CLOSED；
+ * 半开期间业务调用仍全部走内存存储，避免同一时刻一部分请求写Redis、一部分写内存；
+ * 后台探测在任何状态下定期执行，且有超时上限，业务请求不会阻塞在探测上。
+ * CLOSED状态下单次调用的耗时由 spring.redis.timeout 限制，应与探测超时处于同一量级
+ */
+@Component
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    @Autowired(required = false)
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.redis.breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${seckill.redis.breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${seckill.redis.breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${seckill.redis.breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Value("${seckill.redis.breaker.probe-interval-ms:1000}")
+    private long probeIntervalMillis;
+
+    @Value("${seckill.redis.breaker.probe-timeout-ms:500}")
+    private long probeTimeoutMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
+
+    // 滑动窗口：环形数组记录最近的调用结果
+    private AtomicIntegerArray outcomes;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private Callable<String> healthCheck;
+    private Counter fallbackCounter;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService prober;
+
+    public RedisCircuitBreaker() {
+    }
+
+    /**
+     * 不依赖Spring容器创建（测试使用），不启动定时探测，由调用方执行 probe()
+     * @param healthCheck 健康检查命令，返回 PONG 视为健康
+     */
+    public RedisCircuitBreaker(MeterRegistry meterRegistry, Callable<String> healthCheck, int windowSize,
+                               int minimumCalls, int failureRateThreshold, int halfOpenCalls, long probeTimeoutMillis) {
+        this.meterRegistry = meterRegistry;
+        this.healthCheck = healthCheck;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.halfOpenCalls = halfOpenCalls;
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        this.probeIntervalMillis = 0;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        outcomes = new AtomicIntegerArray(windowSize);
+        fallbackCounter = Counter.builder("seckill.redis.fallback.calls")
+                .description("Redis不可用时由内存存储处理的调用数")
+                .register(meterRegistry);
+        Gauge.builder("seckill.redis.breaker.state", state, ref -> ref.get().ordinal())
+                .description("Redis熔断器状态: 0=CLOSED 1=HALF_OPEN 2=OPEN")
+                .register(meterRegistry);
+        if (healthCheck == null && stringRedisTemplate != null) {
+            healthCheck = () -> stringRedisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        }
+        if (healthCheck == null) {
+            return;
+        }
+        prober = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "redis-probe"));
+        if (probeIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "redis-breaker"));
+            scheduler.scheduleWithFixedDelay(this::probe, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 本次调用是否可以访问Redis；只有CLOSED状态放行，半开试探由探测线程完成
+     */
+    public boolean allowRequest() {
+        return state.get() == State.CLOSED;
+    }
+
+    public void recordSuccess() {
+        if (state.get() == State.CLOSED) {
+            record(SUCCESS);
+        }
+    }
+
+    public void recordFailure(Exception e) {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            // 熔断前发出、半开时才失败的调用
+            transition(State.HALF_OPEN, State.OPEN);
+            return;
+        }
+        if (current != State.CLOSED) {
+            return;
+        }
+        // 连接失败说明Redis已不可达，无需等待失败率达到阈值
+        if (e instanceof RedisConnectionFailureException) {
+            transition(State.CLOSED, State.OPEN);
+            return;
+        }
+        record(FAILURE);
+        long calls = Math.min(cursor.get(), windowSize);
+        if (calls >= minimumCalls && failures.get() * 100L >= failureRateThreshold * calls) {
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    /**
+     * 记录一次由内存存储处理的调用
+     */
+    public void recordFallback() {
+        fallbackCounter.increment();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void record(int outcome) {
+        int slot = (int) (cursor.getAndIncrement() % windowSize);
+        int previous = outcomes.getAndSet(slot, outcome);
+        if (previous == FAILURE) {
+            failures.decrementAndGet();
+        }
+        if (outcome == FAILURE) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private void transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return;
+        }
+        if (to == State.CLOSED) {
+            resetWindow();
+        }
+        meterRegistry.counter("seckill.redis.breaker.transitions", "from", from.name(), "to", to.name()).increment();
+        if (to == State.CLOSED) {
+            System.out.println("Redis连接正常，熔断器关闭");
+        } else if (to == State.OPEN) {
+            System.err.println("Redis不可用，熔断器打开，切换到内存存储模式");
+        } else {
+            System.out.println("Redis探测成功，熔断器半开，执行试探命令");
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < windowSize; i++) {
+            outcomes.set(i, EMPTY);
+        }
+        failures.set(0);
+        cursor.set(0);
+    }
+
+    /**
+     * 执行一次探测：打开状态下探测成功进入半开并连续试探 half-open-calls 次，全部成功才关闭；
+     * 关闭或半开状态下探测失败立即熔断
+     */
+    public void probe() {
+        if (healthCheck == null || !probing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            boolean healthy = ping();
+            State current = state.get();
+            if (healthy && current == State.OPEN) {
+                transition(State.OPEN, State.HALF_OPEN);
+                for (int i = 0; i < halfOpenCalls && healthy; i++) {
+                    healthy = ping();
+                }
+                transition(State.HALF_OPEN, healthy ? State.CLOSED : State.OPEN);
+            } else if (!healthy && current != State.OPEN) {
+                transition(current, State.OPEN);
+            }
+        } finally {
+            probing.set(false);
+        }
+    }
+
+    private boolean ping() {
+        Future<String> ping = prober.submit(healthCheck);
+        try {
+            return "PONG".equalsIgnoreCase(ping.get(probeTimeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            ping.cancel(true);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+}
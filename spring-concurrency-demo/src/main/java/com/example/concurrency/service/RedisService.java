@@ -1,197 +1,247 @@
 package com.example.concurrency.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Redis服务类 - 支持降级模式
- * 当Redis不可用时，自动降级到内存存储
+ * 当Redis不可用时，自动降级到带过期时间和容量上限的内存存储
  */
 @Service
 public class RedisService {
     
+    /**
+     * 库存预占脚本结果
+     */
+    public enum ReserveResult {
+        RESERVED,        // 预占成功
+        SOLD_OUT,        // 库存不足
+        ALREADY_BOUGHT,  // 用户已购买
+        NOT_INITIALIZED  // 库存计数器未初始化
+    }
+    
+    /**
+     * 库存预占脚本：一次往返完成去重检查、库存扣减和记录购买用户
+     * KEYS[1] 库存计数器, KEYS[2] 已购用户集合; ARGV[1] 用户ID, ARGV[2] 数量
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1 then return -1 end\n" +
+            "local stock = redis.call('GET', KEYS[1])\n" +
+            "if not stock then return -2 end\n" +
+            "if tonumber(stock) < tonumber(ARGV[2]) then return 0 end\n" +
+            "redis.call('DECRBY', KEYS[1], ARGV[2])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[1])\n" +
+            "return 1", Long.class);
+    
+    /**
+     * 取消预占脚本：用户仍在已购集合中时才归还库存，保证幂等
+     */
+    private static final RedisScript<Long> CANCEL_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SREM', KEYS[2], ARGV[1]) == 1 then\n" +
+            "  redis.call('INCRBY', KEYS[1], ARGV[2])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0", Long.class);
+    
+    /**
+     * 重置库存脚本：按数据库库存覆盖计数器并清空已购用户集合
+     */
+    private static final RedisScript<Long> RESET_STOCK_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "redis.call('DEL', KEYS[2])\n" +
+            "return 1", Long.class);
+    
+    /**
+     * 释放锁脚本：锁值与持有者一致时才删除
+     */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0", Long.class);
+    
+    /**
+     * 续期锁脚本：锁值与持有者一致时才重置过期时间（毫秒）
+     */
+    private static final RedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end\n" +
+            "return 0", Long.class);
+    
     @Autowired(required = false)
     private StringRedisTemplate stringRedisTemplate;
     
     @Autowired(required = false)
     private RedisTemplate<Object, Object> redisTemplate;
     
+    @Autowired(required = false)
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    
     // 内存存储降级实现
-    private final Map<String, String> memoryStore = new ConcurrentHashMap<>();
-    private final Map<String, Long> memoryExpire = new ConcurrentHashMap<>();
+    private final ExpiringMemoryStore memoryStore = new ExpiringMemoryStore(100000, 10);
     private final AtomicLong lockCounter = new AtomicLong(0);
     
-    private volatile boolean redisAvailable = false;
+    @Autowired(required = false)
+    private RedisCircuitBreaker circuitBreaker;
+    
+    @Autowired(required = false)
+    private BlockingCallLimiter blockingCallLimiter;
     
     /**
-     * 检查Redis是否可用
+     * 降级内存存储的条目上限
      */
-    private boolean isRedisAvailable() {
-        if (!redisAvailable && stringRedisTemplate != null) {
-            try {
-                stringRedisTemplate.getConnectionFactory().getConnection().ping();
-                redisAvailable = true;
-                System.out.println("Redis连接正常");
-            } catch (Exception e) {
-                redisAvailable = false;
-                System.err.println("Redis不可用，切换到内存存储模式");
-            }
-        }
-        return redisAvailable && stringRedisTemplate != null;
+    @Value("${seckill.memory-store.max-entries:100000}")
+    public void setMemoryMaxEntries(int maxEntries) {
+        memoryStore.setMaxEntries(maxEntries);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        memoryStore.shutdown();
     }
     
     /**
-     * 设置键值对
+     * 访问Redis，熔断器不放行或调用失败时由内存存储处理
      */
-    public void set(String key, String value, long expireTime) {
-        if (isRedisAvailable()) {
+    private <T> T execute(String action, Supplier<T> redisCall, Supplier<T> fallback) {
+        if (stringRedisTemplate != null && circuitBreaker != null
+                && circuitBreaker.getState() != RedisCircuitBreaker.State.OPEN) {
+            // 虚拟线程模式下限制同时进行的Redis调用，许可超时直接走内存存储（不计入熔断）
+            boolean permitted = blockingCallLimiter == null || blockingCallLimiter.acquireRedis();
+            if (!permitted) {
+                System.err.println("Redis" + action + "等待许可超时，切换到内存存储");
+            }
             try {
-                stringRedisTemplate.opsForValue().set(key, value, expireTime, TimeUnit.SECONDS);
-                return;
+                if (permitted && circuitBreaker.allowRequest()) {
+                    T result = redisCall.get();
+                    circuitBreaker.recordSuccess();
+                    return result;
+                }
             } catch (Exception e) {
-                System.err.println("Redis设置失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
+                System.err.println("Redis" + action + "失败，切换到内存存储: " + e.getMessage());
+                circuitBreaker.recordFailure(e);
+            } finally {
+                if (permitted && blockingCallLimiter != null) {
+                    blockingCallLimiter.releaseRedis();
+                }
             }
         }
         // 降级到内存存储
-        memoryStore.put(key, value);
-        if (expireTime > 0) {
-            memoryExpire.put(key, System.currentTimeMillis() + expireTime * 1000);
+        if (circuitBreaker != null) {
+            circuitBreaker.recordFallback();
         }
+        return fallback.get();
+    }
+    
+    private void run(String action, Runnable redisCall, Runnable fallback) {
+        execute(action, () -> {
+            redisCall.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+    
+    /**
+     * 设置键值对
+     */
+    public void set(String key, String value, long expireTime) {
+        run("设置", () -> {
+            stringRedisTemplate.opsForValue().set(key, value, expireTime, TimeUnit.SECONDS);
+        }, () -> {
+            // 降级到内存存储
+            memoryStore.set(key, value, expireTime * 1000);
+        });
     }
     
     /**
      * 获取键值
      */
     public String get(String key) {
-        if (isRedisAvailable()) {
-            try {
-                return stringRedisTemplate.opsForValue().get(key);
-            } catch (Exception e) {
-                System.err.println("Redis获取失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        String value = memoryStore.get(key);
-        if (value != null) {
-            Long expireTime = memoryExpire.get(key);
-            if (expireTime != null && System.currentTimeMillis() > expireTime) {
-                memoryStore.remove(key);
-                memoryExpire.remove(key);
-                return null;
-            }
-        }
-        return value;
+        return execute("获取", () -> stringRedisTemplate.opsForValue().get(key), () -> {
+            // 降级到内存存储
+            return memoryStore.get(key);
+        });
     }
     
     /**
      * 删除键
      */
     public void delete(String key) {
-        if (isRedisAvailable()) {
-            try {
-                stringRedisTemplate.delete(key);
-                return;
-            } catch (Exception e) {
-                System.err.println("Redis删除失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        memoryStore.remove(key);
-        memoryExpire.remove(key);
+        run("删除", () -> {
+            stringRedisTemplate.delete(key);
+        }, () -> {
+            // 降级到内存存储
+            memoryStore.delete(key);
+        });
     }
     
     /**
      * 检查键是否存在
      */
     public boolean exists(String key) {
-        if (isRedisAvailable()) {
-            try {
-                return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
-            } catch (Exception e) {
-                System.err.println("Redis检查失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        String value = get(key); // 也会检查过期时间
-        return value != null;
+        return execute("检查", () -> Boolean.TRUE.equals(stringRedisTemplate.hasKey(key)), () -> {
+            // 降级到内存存储
+            return memoryStore.exists(key);
+        });
     }
     
     /**
      * 尝试获取分布式锁
-     * 在内存模式下使用简单的计数器实现
+     * 在内存模式下由不存在才设置的原子操作实现
      */
     public boolean tryLock(String lockKey, String lockValue, long expireTime) {
-        if (isRedisAvailable()) {
-            try {
-                Boolean result = stringRedisTemplate.opsForValue()
-                        .setIfAbsent(lockKey, lockValue, expireTime, TimeUnit.MILLISECONDS);
-                return Boolean.TRUE.equals(result);
-            } catch (Exception e) {
-                System.err.println("Redis获取锁失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        
-        // 降级到内存存储实现分布式锁
-        String currentValue = memoryStore.get(lockKey);
-        if (currentValue == null) {
-            // 锁未被占用，获取锁
-            memoryStore.put(lockKey, lockValue);
-            memoryExpire.put(lockKey, System.currentTimeMillis() + expireTime);
-            return true;
-        }
-        
-        // 检查锁是否过期
-        Long expireAt = memoryExpire.get(lockKey);
-        if (expireAt != null && System.currentTimeMillis() > expireAt) {
-            // 锁已过期，尝试重新获取
-            memoryStore.remove(lockKey);
-            memoryExpire.remove(lockKey);
-            return tryLock(lockKey, lockValue, expireTime);
-        }
-        
-        return false;
+        return execute("获取锁", () -> {
+            Boolean result = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, lockValue, expireTime, TimeUnit.MILLISECONDS);
+            return Boolean.TRUE.equals(result);
+        }, () -> {
+            // 降级到内存存储实现分布式锁
+            return memoryStore.setIfAbsent(lockKey, lockValue, expireTime);
+        });
     }
     
     /**
-     * 释放分布式锁
+     * 释放分布式锁：持有者匹配时才删除，比较和删除原子完成
      */
     public boolean releaseLock(String lockKey, String lockValue) {
-        if (isRedisAvailable()) {
-            try {
-                String currentValue = stringRedisTemplate.opsForValue().get(lockKey);
-                if (lockValue.equals(currentValue)) {
-                    stringRedisTemplate.delete(lockKey);
-                    return true;
-                }
-                return false;
-            } catch (Exception e) {
-                System.err.println("Redis释放锁失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        
-        // 降级到内存存储实现
-        String currentValue = memoryStore.get(lockKey);
-        if (lockValue.equals(currentValue)) {
-            memoryStore.remove(lockKey);
-            memoryExpire.remove(lockKey);
-            return true;
-        }
-        return false;
+        return execute("释放锁", () -> {
+            Long code = stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT,
+                    Collections.singletonList(lockKey), lockValue);
+            return code != null && code == 1;
+        }, () -> {
+            // 降级到内存存储实现
+            return memoryStore.compareAndDelete(lockKey, lockValue);
+        });
+    }
+    
+    /**
+     * 续期分布式锁：持有者匹配时才重置过期时间
+     */
+    public boolean renewLock(String lockKey, String lockValue, long expireTime) {
+        return execute("续期锁", () -> {
+            Long code = stringRedisTemplate.execute(RENEW_LOCK_SCRIPT,
+                    Collections.singletonList(lockKey), lockValue, String.valueOf(expireTime));
+            return code != null && code == 1;
+        }, () -> {
+            // 降级到内存存储实现
+            return memoryStore.compareAndExpire(lockKey, lockValue, expireTime);
+        });
     }
     
     /**
@@ -205,175 +255,272 @@ public class RedisService {
      * 设置缓存（Object类型）
      */
     public void setCache(String key, Object value, long expireTime) {
-        if (isRedisAvailable()) {
-            try {
-                redisTemplate.opsForValue().set(key, value, expireTime, TimeUnit.SECONDS);
-                return;
-            } catch (Exception e) {
-                System.err.println("Redis设置缓存失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        memoryStore.put(key, String.valueOf(value));
-        if (expireTime > 0) {
-            memoryExpire.put(key, System.currentTimeMillis() + expireTime * 1000);
-        }
+        run("设置缓存", () -> {
+            redisTemplate.opsForValue().set(key, value, expireTime, TimeUnit.SECONDS);
+        }, () -> {
+            // 降级到内存存储
+            memoryStore.set(key, String.valueOf(value), expireTime * 1000);
+        });
     }
     
     /**
      * 获取缓存（Object类型）
      */
     public Object getCache(String key) {
-        if (isRedisAvailable()) {
-            try {
-                return redisTemplate.opsForValue().get(key);
-            } catch (Exception e) {
-                System.err.println("Redis获取缓存失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        return get(key);
+        return execute("获取缓存", () -> redisTemplate.opsForValue().get(key), () -> {
+            // 降级到内存存储
+            return get(key);
+        });
     }
     
     /**
      * 批量设置缓存
      */
     public void mset(Map<String, String> keyValuePairs, long expireTime) {
-        if (isRedisAvailable()) {
-            try {
-                stringRedisTemplate.opsForValue().multiSet(keyValuePairs);
-                if (expireTime > 0) {
-                    keyValuePairs.keySet().forEach(key -> 
-                        stringRedisTemplate.expire(key, expireTime, TimeUnit.SECONDS));
-                }
-                return;
-            } catch (Exception e) {
-                System.err.println("Redis批量设置失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
+        run("批量设置", () -> {
+            stringRedisTemplate.opsForValue().multiSet(keyValuePairs);
+            if (expireTime > 0) {
+                keyValuePairs.keySet().forEach(key -> 
+                    stringRedisTemplate.expire(key, expireTime, TimeUnit.SECONDS));
             }
-        }
-        // 降级到内存存储
-        keyValuePairs.forEach((key, value) -> set(key, value, expireTime));
+        }, () -> {
+            // 降级到内存存储
+            keyValuePairs.forEach((key, value) -> set(key, value, expireTime));
+        });
     }
     
     /**
      * 批量获取缓存
      */
     public List<String> mget(List<String> keys) {
-        if (isRedisAvailable()) {
-            try {
-                return stringRedisTemplate.opsForValue().multiGet(keys);
-            } catch (Exception e) {
-                System.err.println("Redis批量获取失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        return keys.stream().map(this::get).collect(java.util.stream.Collectors.toList());
+        return execute("批量获取", () -> stringRedisTemplate.opsForValue().multiGet(keys), () -> {
+            // 降级到内存存储
+            return keys.stream().map(this::get).collect(java.util.stream.Collectors.toList());
+        });
     }
     
     /**
      * 增加计数器
      */
     public long incr(String key, long delta) {
-        if (isRedisAvailable()) {
-            try {
-                return stringRedisTemplate.opsForValue().increment(key, delta);
-            } catch (Exception e) {
-                System.err.println("Redis计数器失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        String current = get(key);
-        long currentValue = current != null ? Long.parseLong(current) : 0;
-        long newValue = currentValue + delta;
-        set(key, String.valueOf(newValue), 0);
-        return newValue;
+        return execute("计数器", () -> stringRedisTemplate.opsForValue().increment(key, delta), () -> {
+            // 降级到内存存储
+            return memoryStore.incr(key, delta);
+        });
     }
     
     /**
      * 设置过期时间
      */
     public boolean expire(String key, long expireTime) {
-        if (isRedisAvailable()) {
-            try {
-                return Boolean.TRUE.equals(stringRedisTemplate.expire(key, expireTime, TimeUnit.SECONDS));
-            } catch (Exception e) {
-                System.err.println("Redis设置过期时间失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        memoryExpire.put(key, System.currentTimeMillis() + expireTime * 1000);
-        return true;
+        return execute("设置过期时间",
+                () -> Boolean.TRUE.equals(stringRedisTemplate.expire(key, expireTime, TimeUnit.SECONDS)), () -> {
+            // 降级到内存存储
+            return memoryStore.expire(key, expireTime * 1000);
+        });
     }
     
     /**
      * 获取过期时间
      */
     public long getExpire(String key) {
-        if (isRedisAvailable()) {
-            try {
-                Long expire = stringRedisTemplate.getExpire(key, TimeUnit.SECONDS);
-                return expire != null ? expire : -1;
-            } catch (Exception e) {
-                System.err.println("Redis获取过期时间失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
-            }
-        }
-        // 降级到内存存储
-        Long expireAt = memoryExpire.get(key);
-        if (expireAt != null) {
-            return Math.max(0, (expireAt - System.currentTimeMillis()) / 1000);
-        }
-        return -1;
+        return execute("获取过期时间", () -> {
+            Long expire = stringRedisTemplate.getExpire(key, TimeUnit.SECONDS);
+            return expire != null ? expire : -1;
+        }, () -> {
+            // 降级到内存存储
+            long ttl = memoryStore.ttlMillis(key);
+            return ttl >= 0 ? ttl / 1000 : -1;
+        });
     }
     
     /**
      * 模糊删除
      */
     public void deleteByPattern(String pattern) {
-        if (isRedisAvailable()) {
-            try {
-                Set<String> keys = stringRedisTemplate.keys(pattern);
-                if (!keys.isEmpty()) {
-                    stringRedisTemplate.delete(keys);
-                }
-                return;
-            } catch (Exception e) {
-                System.err.println("Redis模糊删除失败，切换到内存存储: " + e.getMessage());
-                redisAvailable = false;
+        run("模糊删除", () -> {
+            Set<String> keys = stringRedisTemplate.keys(pattern);
+            if (!keys.isEmpty()) {
+                stringRedisTemplate.delete(keys);
+            }
+        }, () -> {
+            // 降级到内存存储
+            memoryStore.deleteByPrefix(pattern.replace("*", ""));
+        });
+    }
+    
+    /**
+     * 发布消息到频道，内存模式只有单节点，无需广播
+     */
+    public void publish(String channel, String message) {
+        run("发布消息", () -> {
+            stringRedisTemplate.convertAndSend(channel, message);
+        }, () -> {
+            // 降级到内存存储：无订阅方
+        });
+    }
+    
+    /**
+     * 初始化秒杀库存计数器，已存在时不覆盖
+     */
+    public boolean initStock(String productCode, int stock) {
+        String stockKey = stockKey(productCode);
+        return execute("初始化库存", () -> {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(stockKey, String.valueOf(stock)));
+        }, () -> {
+            // 降级到内存存储
+            return memoryStore.setIfAbsent(stockKey, String.valueOf(stock), 0);
+        });
+    }
+    
+    /**
+     * 用数据库可用库存覆盖库存计数器并清空已购用户集合（启动时调用）
+     * 数据库重建后Redis中残留的计数器和用户集合已不对应任何数据，不能沿用；
+     * 已购用户改由下单时的购买位图和数据库检查确认
+     */
+    public void resetStock(String productCode, int stock) {
+        String stockKey = stockKey(productCode);
+        String buyersKey = buyersKey(productCode);
+        run("重置库存", () -> {
+            stringRedisTemplate.execute(RESET_STOCK_SCRIPT, Arrays.asList(stockKey, buyersKey), String.valueOf(stock));
+        }, () -> {
+            // 降级到内存存储
+            memoryStore.set(stockKey, String.valueOf(stock), 0);
+            memoryStore.delete(buyersKey);
+        });
+    }
+    
+    /**
+     * 原子预占库存并记录购买用户
+     */
+    public ReserveResult reserveStock(String productCode, Long userId, int quantity) {
+        String stockKey = stockKey(productCode);
+        String buyersKey = buyersKey(productCode);
+        return execute("预占库存", () -> {
+            Long code = stringRedisTemplate.execute(RESERVE_SCRIPT,
+                    Arrays.asList(stockKey, buyersKey), String.valueOf(userId), String.valueOf(quantity));
+            return toReserveResult(code);
+        }, () -> reserveInMemory(stockKey, buyersKey, userId, quantity));
+    }
+    
+    /**
+     * 非阻塞预占库存：通过响应式连接执行预占脚本，不占用调用线程；
+     * 返回的Future在Redis事件循环线程上完成，后续阻塞操作需切换到其他线程池
+     */
+    public CompletableFuture<ReserveResult> reserveStockAsync(String productCode, Long userId, int quantity) {
+        String stockKey = stockKey(productCode);
+        String buyersKey = buyersKey(productCode);
+        if (reactiveRedisTemplate == null || circuitBreaker == null || !circuitBreaker.allowRequest()) {
+            if (circuitBreaker != null) {
+                circuitBreaker.recordFallback();
             }
+            return CompletableFuture.completedFuture(reserveInMemory(stockKey, buyersKey, userId, quantity));
         }
-        // 降级到内存存储
-        String prefix = pattern.replace("*", "");
-        memoryStore.keySet().removeIf(key -> key.startsWith(prefix));
-        memoryExpire.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
+        return reactiveRedisTemplate.execute(RESERVE_SCRIPT, Arrays.asList(stockKey, buyersKey),
+                        Arrays.asList(String.valueOf(userId), String.valueOf(quantity)))
+                .next()
+                .map(RedisService::toReserveResult)
+                .defaultIfEmpty(ReserveResult.NOT_INITIALIZED)
+                .toFuture()
+                .handle((result, error) -> {
+                    if (error == null) {
+                        circuitBreaker.recordSuccess();
+                        return result;
+                    }
+                    System.err.println("Redis异步预占库存失败，切换到内存存储: " + error.getMessage());
+                    circuitBreaker.recordFailure(error instanceof Exception ? (Exception) error : new RuntimeException(error));
+                    circuitBreaker.recordFallback();
+                    return reserveInMemory(stockKey, buyersKey, userId, quantity);
+                });
     }
     
     /**
-     * 获取存储模式信息
+     * 内存存储预占：在库存key上原子计算，同一商品的预占串行执行
      */
-    public String getStorageMode() {
-        return isRedisAvailable() ? "Redis" : "内存";
+    private ReserveResult reserveInMemory(String stockKey, String buyersKey, Long userId, int quantity) {
+        String member = String.valueOf(userId);
+        Set<String> buyers = memoryStore.getOrCreateSet(buyersKey);
+        long[] code = new long[1];
+        memoryStore.update(stockKey, stock -> {
+            if (buyers.contains(member)) {
+                code[0] = -1;
+                return stock;
+            }
+            if (stock == null) {
+                code[0] = -2;
+                return null;
+            }
+            long current = Long.parseLong(stock);
+            if (current < quantity) {
+                return stock;
+            }
+            buyers.add(member);
+            code[0] = 1;
+            return String.valueOf(current - quantity);
+        });
+        return toReserveResult(code[0]);
     }
     
     /**
-     * 清理过期的内存数据
+     * 取消预占：归还库存并移除购买用户
      */
-    public void cleanupExpiredMemoryData() {
-        if (!redisAvailable) {
-            long now = System.currentTimeMillis();
-            memoryExpire.entrySet().removeIf(entry -> {
-                if (entry.getValue() <= now) {
-                    memoryStore.remove(entry.getKey());
-                    return true;
+    public boolean cancelReservation(String productCode, Long userId, int quantity) {
+        String stockKey = stockKey(productCode);
+        String buyersKey = buyersKey(productCode);
+        return execute("取消预占", () -> {
+            Long code = stringRedisTemplate.execute(CANCEL_SCRIPT,
+                    Arrays.asList(stockKey, buyersKey), String.valueOf(userId), String.valueOf(quantity));
+            return code != null && code == 1;
+        }, () -> {
+            // 降级到内存存储
+            Set<String> buyers = memoryStore.getSet(buyersKey);
+            boolean[] cancelled = new boolean[1];
+            memoryStore.update(stockKey, stock -> {
+                if (buyers == null || !buyers.remove(String.valueOf(userId))) {
+                    return stock;
                 }
-                return false;
+                cancelled[0] = true;
+                long current = stock != null ? Long.parseLong(stock) : 0;
+                return String.valueOf(current + quantity);
             });
+            return cancelled[0];
+        });
+    }
+    
+    /**
+     * 商品库存计数器key；商品编码作为hash tag，与购买用户集合落在同一槽位，集群模式下脚本可同时操作两个key
+     */
+    public static String stockKey(String productCode) {
+        return "seckill:{" + productCode + "}:stock";
+    }
+    
+    private static String buyersKey(String productCode) {
+        return "seckill:{" + productCode + "}:buyers";
+    }
+    
+    private static ReserveResult toReserveResult(Long code) {
+        if (code == null) {
+            return ReserveResult.NOT_INITIALIZED;
         }
+        switch (code.intValue()) {
+            case 1:
+                return ReserveResult.RESERVED;
+            case -1:
+                return ReserveResult.ALREADY_BOUGHT;
+            case -2:
+                return ReserveResult.NOT_INITIALIZED;
+            default:
+                return ReserveResult.SOLD_OUT;
+        }
+    }
+    
+    /**
+     * 获取存储模式信息
+     */
+    public String getStorageMode() {
+        boolean redis = stringRedisTemplate != null && circuitBreaker != null
+                && circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+        return redis ? "Redis" : "内存";
     }
-}
\ No newline at end of file
+}
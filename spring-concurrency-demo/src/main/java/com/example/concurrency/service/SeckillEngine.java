@@ -0,0 +1,511 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲下单引擎 (seckill.engine.mode=ring)
+ * 商品按编码哈希分配到分片，每个分片一个预分配的环形缓冲和唯一的消费线程；
+ * 多个请求线程发布购买意向，消费线程独占所属商品的剩余库存和购买用户集合，判定时无锁、无CAS竞争，
+ * 每批意向处理完后用一条 UPDATE 在专用连接上扣减数据库库存，再把结果交还等待的请求线程；
+ * 订单由请求线程在自己的事务中创建，事务回滚时发布归还事件。
+ * 引擎模式下不使用内存库存账本和Redis库存计数器（StockLedger 随引擎关闭），准入控制的许可数
+ * 按商品缓存中的数据库库存计算，引擎扣减后在库存缓存过期时收缩；售罄标记按分片读取库存前的版本号设置，
+ * 期间补货或归还清除过标记时不会再被过期的判定覆盖
+ */
+@Component
+public class SeckillEngine {
+
+    private static final String DEDUCT_SQL =
+            "UPDATE seckill_products SET available_stock = available_stock - ?, version = version + 1 " +
+            "WHERE id = ? AND available_stock >= ?";
+    private static final String RESTORE_SQL =
+            "UPDATE seckill_products SET available_stock = available_stock + ?, version = version + 1 WHERE id = ?";
+    private static final String STOCK_SQL =
+            "SELECT available_stock FROM seckill_products WHERE id = ?";
+
+    private static final int ACQUIRE = 1;
+    private static final int RELEASE = 2;
+    private static final int INVALIDATE = 3;
+
+    @Autowired
+    private SoldOutGate soldOutGate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${seckill.engine.mode:classic}")
+    private String mode;
+
+    @Value("${seckill.engine.shards:4}")
+    private int shardCount;
+
+    @Value("${seckill.engine.ring-size:4096}")
+    private int ringSize;
+
+    @Value("${seckill.engine.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${seckill.engine.wait-timeout-ms:1000}")
+    private long waitTimeoutMillis;
+
+    private Shard[] shards;
+    private DataSource writerDataSource;
+    private DistributionSummary batchSummary;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalStateException("seckill.engine.ring-size 必须是2的幂: " + ringSize);
+        }
+        // 分片专用连接，不占用请求事务的连接池
+        writerDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        batchSummary = DistributionSummary.builder("seckill.engine.batch.size")
+                .description("下单引擎每批处理的事件数")
+                .register(meterRegistry);
+        running = true;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            Gauge.builder("seckill.engine.backlog", shards[i], Shard::backlog)
+                    .description("环形缓冲中待处理的事件数")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            shards[i].thread.start();
+        }
+        System.out.println("环形缓冲下单引擎已启用，分片数:" + shardCount + ", 缓冲大小:" + ringSize);
+    }
+
+    public boolean isEnabled() {
+        return "ring".equals(mode);
+    }
+
+    /**
+     * 发布购买意向并等待分片判定；成功时数据库库存已扣减，返回null
+     * 缓冲已满时返回 QUEUE_FULL，等待超时返回 TRY_LATER（超时后分到的库存由消费线程归还）
+     */
+    public SeckillError acquire(SeckillProduct product, Long userId, int quantity) {
+        CompletableFuture<SeckillError> reply = new CompletableFuture<>();
+        if (!publish(ACQUIRE, product.getProductCode(), product, userId, quantity, reply, false)) {
+            return SeckillError.QUEUE_FULL;
+        }
+        try {
+            return reply.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (reply.complete(SeckillError.TRY_LATER)) {
+                return SeckillError.TRY_LATER;
+            }
+            return reply.getNow(SeckillError.SYSTEM_ERROR);
+        } catch (ExecutionException e) {
+            return SeckillError.SYSTEM_ERROR;
+        }
+    }
+
+    /**
+     * 归还已判定成功的库存和购买资格（订单创建失败或事务回滚）
+     */
+    public void release(String productCode, Long userId, int quantity) {
+        publish(RELEASE, productCode, null, userId, quantity, null, true);
+    }
+
+    /**
+     * 商品信息或库存在引擎之外变化（补货、后台修改）后，下次判定前重新读取数据库库存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (running) {
+            publish(INVALIDATE, event.getProductCode(), null, null, 0, null, true);
+        }
+    }
+
+    private boolean publish(int type, String productCode, SeckillProduct product, Long userId, int quantity,
+                            CompletableFuture<SeckillError> reply, boolean waitForSlot) {
+        if (!running) {
+            if (reply != null) {
+                reply.complete(SeckillError.SYSTEM_ERROR);
+            }
+            return reply != null;
+        }
+        Shard shard = shards[Math.floorMod(productCode.hashCode(), shards.length)];
+        long sequence = shard.claim(waitForSlot);
+        if (sequence < 0) {
+            return false;
+        }
+        Slot slot = shard.ring[(int) sequence & shard.mask];
+        slot.type = type;
+        slot.productCode = productCode;
+        slot.product = product;
+        slot.userId = userId;
+        slot.quantity = quantity;
+        slot.reply = reply;
+        shard.published.lazySet((int) sequence & shard.mask, sequence);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (shards == null) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 环形缓冲槽位，启动时一次性分配，消费后清空引用供下一轮复用
+     */
+    private static final class Slot {
+        int type;
+        String productCode;
+        SeckillProduct product;
+        Long userId;
+        int quantity;
+        CompletableFuture<SeckillError> reply;
+    }
+
+    /**
+     * 分片内单个商品的状态，只由分片消费线程读写
+     */
+    private static final class ProductState {
+        final Long productId;
+        final String productCode;
+        final Set<Long> buyers = new HashSet<>();
+        final List<Grant> pending = new ArrayList<>();
+        int remaining;
+        boolean stale = true;
+        // 上次读取数据库库存前的售罄标记版本号
+        long soldOutVersion;
+
+        ProductState(Long productId, String productCode) {
+            this.productId = productId;
+            this.productCode = productCode;
+        }
+    }
+
+    private static final class Grant {
+        final Long userId;
+        final int quantity;
+        final CompletableFuture<SeckillError> reply;
+
+        Grant(Long userId, int quantity, CompletableFuture<SeckillError> reply) {
+            this.userId = userId;
+            this.quantity = quantity;
+            this.reply = reply;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final Slot[] ring = new Slot[ringSize];
+        final int mask = ringSize - 1;
+        final AtomicLongArray published = new AtomicLongArray(ringSize);
+        final AtomicLong claimed = new AtomicLong(-1);
+        final AtomicLong consumed = new AtomicLong(-1);
+        final Thread thread;
+
+        // 以下字段只在消费线程中访问
+        final Map<String, ProductState> products = new HashMap<>();
+        final List<ProductState> dirty = new ArrayList<>();
+        Connection connection;
+
+        Shard(int index) {
+            for (int i = 0; i < ringSize; i++) {
+                ring[i] = new Slot();
+                published.set(i, -1);
+            }
+            thread = new Thread(this, "seckill-engine-" + index);
+            thread.setDaemon(true);
+        }
+
+        long backlog() {
+            return claimed.get() - consumed.get();
+        }
+
+        /**
+         * 多生产者申请序号；缓冲已满时按需等待消费线程推进
+         */
+        long claim(boolean waitForSlot) {
+            while (true) {
+                long current = claimed.get();
+                long next = current + 1;
+                if (next - ringSize > consumed.get()) {
+                    if (!waitForSlot) {
+                        return -1;
+                    }
+                    LockSupport.parkNanos(1000);
+                    continue;
+                }
+                if (claimed.compareAndSet(current, next)) {
+                    return next;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int idle = 0;
+            while (running || published.get((int) next & mask) == next) {
+                long available = next - 1;
+                while (available - next + 1 < maxBatch
+                        && published.get((int) (available + 1) & mask) == available + 1) {
+                    available++;
+                }
+                if (available < next) {
+                    // 先自旋，再让出CPU，长时间空闲时短暂休眠
+                    if (++idle > 200) {
+                        LockSupport.parkNanos(50_000);
+                    } else if (idle > 100) {
+                        Thread.yield();
+                    }
+                    continue;
+                }
+                idle = 0;
+                for (long sequence = next; sequence <= available; sequence++) {
+                    handle(ring[(int) sequence & mask]);
+                }
+                flush();
+                batchSummary.record(available - next + 1);
+                consumed.lazySet(available);
+                next = available + 1;
+            }
+            closeConnection();
+        }
+
+        private void handle(Slot slot) {
+            String productCode = slot.productCode;
+            Long userId = slot.userId;
+            int quantity = slot.quantity;
+            SeckillProduct product = slot.product;
+            CompletableFuture<SeckillError> reply = slot.reply;
+            slot.productCode = null;
+            slot.product = null;
+            slot.userId = null;
+            slot.reply = null;
+
+            if (slot.type == ACQUIRE) {
+                acquire(product, userId, quantity, reply);
+            } else if (slot.type == RELEASE) {
+                // 未经本引擎判定的商品没有可归还的库存，不清除售罄标记
+                ProductState state = products.get(productCode);
+                if (state == null) {
+                    System.err.println("下单引擎忽略未知商品的归还 - 商品:" + productCode + ", 用户ID:" + userId);
+                    return;
+                }
+                state.remaining += quantity;
+                state.buyers.remove(userId);
+                restore(state, quantity);
+                soldOutGate.reset(productCode);
+                state.soldOutVersion = soldOutGate.version(productCode);
+            } else {
+                ProductState state = products.get(productCode);
+                if (state != null) {
+                    state.stale = true;
+                }
+            }
+        }
+
+        private void acquire(SeckillProduct product, Long userId, int quantity,
+                             CompletableFuture<SeckillError> reply) {
+            ProductState state = products.computeIfAbsent(product.getProductCode(),
+                    code -> new ProductState(product.getId(), code));
+            if (state.stale && !refresh(state)) {
+                reply.complete(SeckillError.SYSTEM_ERROR);
+                return;
+            }
+            if (state.buyers.contains(userId)) {
+                reply.complete(SeckillError.ALREADY_BOUGHT);
+                return;
+            }
+            if (state.remaining < quantity) {
+                soldOutGate.markSoldOut(state.productCode, state.soldOutVersion);
+                reply.complete(SeckillError.SOLD_OUT);
+                return;
+            }
+            state.remaining -= quantity;
+            state.buyers.add(userId);
+            if (state.pending.isEmpty()) {
+                dirty.add(state);
+            }
+            state.pending.add(new Grant(userId, quantity, reply));
+        }
+
+        /**
+         * 重新读取数据库库存；本批已判定但未扣减的库存先落库
+         */
+        private boolean refresh(ProductState state) {
+            if (!state.pending.isEmpty()) {
+                flush();
+            }
+            state.soldOutVersion = soldOutGate.version(state.productCode);
+            try {
+                state.remaining = readStock(state.productId);
+                state.stale = false;
+                return true;
+            } catch (SQLException e) {
+                System.err.println("下单引擎读取库存失败 - 商品:" + state.productCode + ", 原因:" + e.getMessage());
+                closeConnection();
+                return false;
+            }
+        }
+
+        /**
+         * 每个商品用一条 UPDATE 扣减本批判定成功的总数；
+         * 库存被引擎之外的写入改动而不足时，按到达顺序分配实际剩余库存
+         */
+        private void flush() {
+            for (ProductState state : dirty) {
+                List<Grant> grants = state.pending;
+                int requested = 0;
+                for (Grant grant : grants) {
+                    requested += grant.quantity;
+                }
+                int granted;
+                try {
+                    if (deduct(state.productId, requested)) {
+                        granted = requested;
+                    } else {
+                        int available = readStock(state.productId);
+                        granted = 0;
+                        for (Grant grant : grants) {
+                            if (granted + grant.quantity > available) {
+                                break;
+                            }
+                            granted += grant.quantity;
+                        }
+                        if (granted > 0 && !deduct(state.productId, granted)) {
+                            granted = 0;
+                        }
+                        state.remaining = available - granted;
+                    }
+                } catch (SQLException e) {
+                    System.err.println("下单引擎扣减库存失败 - 商品:" + state.productCode + ", 原因:" + e.getMessage());
+                    closeConnection();
+                    state.stale = true;
+                    for (Grant grant : grants) {
+                        state.buyers.remove(grant.userId);
+                        grant.reply.complete(SeckillError.SYSTEM_ERROR);
+                    }
+                    grants.clear();
+                    continue;
+                }
+
+                int unused = 0;
+                for (Grant grant : grants) {
+                    boolean ok = grant.quantity <= granted;
+                    if (ok) {
+                        granted -= grant.quantity;
+                        if (grant.reply.complete(null)) {
+                            continue;
+                        }
+                        // 请求线程已超时放弃
+                        unused += grant.quantity;
+                    } else {
+                        grant.reply.complete(SeckillError.SOLD_OUT);
+                    }
+                    state.buyers.remove(grant.userId);
+                }
+                if (unused > 0) {
+                    state.remaining += unused;
+                    restore(state, unused);
+                }
+                if (state.remaining <= 0) {
+                    soldOutGate.markSoldOut(state.productCode, state.soldOutVersion);
+                }
+                grants.clear();
+            }
+            dirty.clear();
+        }
+
+        private boolean deduct(Long productId, int quantity) throws SQLException {
+            try (PreparedStatement deduct = connection().prepareStatement(DEDUCT_SQL)) {
+                deduct.setInt(1, quantity);
+                deduct.setLong(2, productId);
+                deduct.setInt(3, quantity);
+                return deduct.executeUpdate() == 1;
+            }
+        }
+
+        private int readStock(Long productId) throws SQLException {
+            try (PreparedStatement query = connection().prepareStatement(STOCK_SQL)) {
+                query.setLong(1, productId);
+                try (ResultSet rs = query.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        }
+
+        private void restore(ProductState state, int quantity) {
+            try (PreparedStatement restore = connection().prepareStatement(RESTORE_SQL)) {
+                restore.setInt(1, quantity);
+                restore.setLong(2, state.productId);
+                restore.executeUpdate();
+            } catch (SQLException e) {
+                System.err.println("下单引擎归还库存失败 - 商品:" + state.productCode + ", 数量:" + quantity + ", 原因:" + e.getMessage());
+                closeConnection();
+                state.stale = true;
+            }
+        }
+
+        private Connection connection() throws SQLException {
+            if (connection == null) {
+                connection = writerDataSource.getConnection();
+                connection.setAutoCommit(true);
+            }
+            return connection;
+        }
+
+        private void closeConnection() {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // 连接已不可用
+                }
+                connection = null;
+            }
+        }
+    }
+}
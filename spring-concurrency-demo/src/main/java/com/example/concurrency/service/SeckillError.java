@@ -0,0 +1,44 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.service.SeckillService.SeckillResult;
+
+/**
+ * 秒杀下单错误码
+ * 每个错误码持有一个预分配的失败结果，热点路径上失败不再创建对象和拼接字符串；
+ * 异常详情只写日志，不返回给客户端
+ */
+public enum SeckillError {
+
+    INVALID_PARAM("参数错误"),
+    LIMIT_EXCEEDED("每人限购1件"),
+    PRODUCT_NOT_FOUND("商品不存在"),
+    NOT_IN_SECKILL_TIME("商品不在秒杀时间内"),
+    SOLD_OUT("商品已售罄"),
+    STOCK_NOT_ENOUGH("库存不足，抢购失败"),
+    STOCK_CONFLICT("抢购人数过多，请稍后再试"),
+    ALREADY_BOUGHT("您已经抢购过该商品"),
+    TOO_FREQUENT("请求过于频繁，请稍后再试"),
+    TRY_LATER("商品即将售罄，抢购人数过多，请稍后再试"),
+    QUEUE_FULL("下单人数过多，请稍后再试"),
+    BUSY("服务繁忙，请稍后重试"),
+    SYSTEM_ERROR("系统繁忙，请稍后再试");
+
+    private final String message;
+    private final SeckillResult result;
+
+    SeckillError(String message) {
+        this.message = message;
+        this.result = SeckillResult.failed(this);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 预分配的失败结果
+     */
+    public SeckillResult result() {
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.service.SeckillService.OrderReceipt;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 下单结果序列化器
+ * 手写字段输出，不走Bean反射；字段名、错误码和错误信息预先编码，失败响应只写常量
+ * 输出格式: {"success":false,"code":"SOLD_OUT","message":"商品已售罄","data":null}
+ */
+public class SeckillResultSerializer extends StdSerializer<SeckillResult> {
+
+    private static final SerializedString SUCCESS = new SerializedString("success");
+    private static final SerializedString CODE = new SerializedString("code");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString OK = new SerializedString("OK");
+    private static final SerializedString ORDER_NO = new SerializedString("orderNo");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString PRODUCT_ID = new SerializedString("productId");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString TOTAL_AMOUNT = new SerializedString("totalAmount");
+
+    private static final Map<SeckillError, SerializedString> ERROR_CODES = new EnumMap<>(SeckillError.class);
+    private static final Map<SeckillError, SerializedString> ERROR_MESSAGES = new EnumMap<>(SeckillError.class);
+
+    static {
+        for (SeckillError error : SeckillError.values()) {
+            ERROR_CODES.put(error, new SerializedString(error.name()));
+            ERROR_MESSAGES.put(error, new SerializedString(error.getMessage()));
+        }
+    }
+
+    public SeckillResultSerializer() {
+        super(SeckillResult.class);
+    }
+
+    @Override
+    public void serialize(SeckillResult result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(SUCCESS);
+        gen.writeBoolean(result.isSuccess());
+        SeckillError error = result.getError();
+        gen.writeFieldName(CODE);
+        gen.writeString(error == null ? OK : ERROR_CODES.get(error));
+        gen.writeFieldName(MESSAGE);
+        gen.writeString(error == null ? SUCCESS : ERROR_MESSAGES.get(error));
+        gen.writeFieldName(DATA);
+        OrderReceipt receipt = result.getData();
+        if (receipt == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject();
+            gen.writeFieldName(ORDER_NO);
+            gen.writeString(receipt.getOrderNo());
+            gen.writeFieldName(USER_ID);
+            gen.writeNumber(receipt.getUserId());
+            gen.writeFieldName(PRODUCT_ID);
+            gen.writeNumber(receipt.getProductId());
+            gen.writeFieldName(QUANTITY);
+            gen.writeNumber(receipt.getQuantity());
+            gen.writeFieldName(TOTAL_AMOUNT);
+            gen.writeNumber(receipt.getTotalAmount());
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+}
@@ -4,25 +4,41 @@ import com.example.concurrency.entity.SeckillProduct;
 import com.example.concurrency.entity.SeckillOrder;
 import com.example.concurrency.repository.SeckillOrderRepository;
 import com.example.concurrency.repository.SeckillProductRepository;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.ListenableFuture;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * 秒杀服务类
- * 实现高并发场景下的库存扣减和订单处理
+ * 实现高并发场景下的库存扣减和订单处理；
+ * 下单入口在事务外完成加锁、预占和版本冲突重试，只有扣减库存和创建订单在事务中执行
  */
 @Service
-@Transactional
 public class SeckillService {
     
     @Autowired
@@ -34,80 +50,408 @@ public class SeckillService {
     @Autowired
     private RedisService redisService;
     
+    @Autowired
+    private StockLedger stockLedger;
+    
+    @Autowired
+    private OrderWriteBehindService orderWriteBehind;
+    
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+    
+    @Autowired
+    private BuyerRegistry buyerRegistry;
+    
+    @Autowired
+    private SoldOutGate soldOutGate;
+    
+    @Autowired
+    private LockManager lockManager;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductCodeFilter productCodeFilter;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private List<StockDeductionStrategy> stockDeductionStrategies;
+    
+    @Autowired
+    private SeckillEngine seckillEngine;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // 经过事务代理调用自身，使每次下单尝试都在独立事务中执行
+    @Autowired
+    @Lazy
+    private SeckillService self;
+    
+    @Value("${seckill.ledger.enabled:true}")
+    private boolean ledgerEnabled;
+    
+    @Value("${seckill.redis.reserve-script.enabled:true}")
+    private boolean reserveScriptEnabled;
+    
+    @Value("${seckill.stock.strategy:optimistic}")
+    private String stockStrategyName;
+    
+    @Value("${seckill.stock.max-retry:3}")
+    private int maxRetry;
+    
+    @Value("${seckill.stock.retry-backoff-ms:2}")
+    private long retryBackoffMillis;
+    
+    private StockDeductionStrategy stockDeductionStrategy;
+    private Timer deductionSuccessTimer;
+    private Timer deductionFailedTimer;
+    
+    /**
+     * 按配置选择库存扣减策略并注册扣减耗时指标
+     */
+    @PostConstruct
+    public void initStockDeductionStrategy() {
+        stockDeductionStrategy = stockDeductionStrategies.stream()
+                .filter(strategy -> strategy.getName().equals(stockStrategyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未知的库存扣减策略: " + stockStrategyName));
+        deductionSuccessTimer = deductionTimer("success");
+        deductionFailedTimer = deductionTimer("failed");
+        System.out.println("库存扣减策略: " + stockStrategyName);
+    }
+    
+    private Timer deductionTimer(String result) {
+        return Timer.builder("seckill.stock.deduction")
+                .description("库存扣减耗时")
+                .tag("strategy", stockStrategyName)
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+    
     /**
      * 秒杀下单核心方法
-     * 使用乐观锁和Redis分布式锁保证数据一致性
+     * 使用乐观锁和 (商品, 用户) 锁保证数据一致性，集群模式下用户锁升级为Redis租约
+     * 开启库存账本时先在内存中预占库存，售罄请求不再访问数据库；
+     * 开启Redis预占脚本时由脚本一次完成去重和库存预占，不再加用户锁；
+     * 开启环形缓冲引擎时库存和重复购买改由商品所在分片的单一写线程判定；
+     * 用户锁和库存预占在事务外完成，只有扣减库存和创建订单在事务中执行，
+     * 乐观锁版本冲突时保留锁和预占，退避后在新事务中重试
      */
     public SeckillResult doSeckill(Long userId, String productCode, Integer quantity) {
         // 1. 参数验证
         if (userId == null || productCode == null || quantity == null || quantity <= 0) {
-            return SeckillResult.failed("参数错误");
+            return SeckillError.INVALID_PARAM.result();
         }
         
         // 2. 检查用户购买限制（每人限购1件）
         if (quantity > 1) {
-            return SeckillResult.failed("每人限购1件");
+            return SeckillError.LIMIT_EXCEEDED.result();
+        }
+        
+        // 3. 已售罄商品直接返回，不存在的商品编码在内存中拒绝
+        if (soldOutGate.isSoldOut(productCode)) {
+            return SeckillError.SOLD_OUT.result();
+        }
+        if (!productCodeFilter.mightContain(productCode)) {
+            return SeckillError.PRODUCT_NOT_FOUND.result();
+        }
+        // 观察库存前读取售罄标记版本号，期间有库存归还时不再标记售罄
+        long soldOutVersion = soldOutGate.version(productCode);
+        if (seckillEngine.isEnabled()) {
+            return self.doSeckillWithEngine(userId, productCode, quantity);
         }
         
-        // 3. 生成分布式锁key
-        String lockKey = "seckill:lock:" + productCode + ":" + userId;
-        String lockValue = String.valueOf(System.currentTimeMillis());
+        LockManager.LockHandle lock = null;
+        boolean ledgerReserved = false;
+        boolean redisReserved = false;
+        SeckillProduct product = null;
+        SeckillResult result = null;
         
         try {
-            // 4. 尝试获取分布式锁
-            boolean locked = redisService.tryLock(lockKey, lockValue, 10000);
-            if (!locked) {
-                return SeckillResult.failed("请求过于频繁，请稍后再试");
+            // 4. 获取用户锁（预占脚本已按用户去重，无需加锁）
+            if (!reserveScriptEnabled) {
+                lock = lockManager.tryLock(productCode, userId);
+                if (lock == null) {
+                    return SeckillError.TOO_FREQUENT.result();
+                }
             }
             
-            // 5. 获取商品信息
-            Optional<SeckillProduct> productOpt = productRepository.findByProductCode(productCode);
-            if (!productOpt.isPresent()) {
-                return SeckillResult.failed("商品不存在");
+            // 5. 内存账本预占库存（已预热的商品售罄时直接返回）
+            if (ledgerEnabled) {
+                if (!stockLedger.contains(productCode)) {
+                    product = findProduct(productCode);
+                    if (product == null) {
+                        return SeckillError.PRODUCT_NOT_FOUND.result();
+                    }
+                    stockLedger.warmUpIfAbsent(productCode, product.getAvailableStock());
+                }
+                if (!stockLedger.tryReserve(productCode, quantity)) {
+                    soldOutGate.markSoldOut(productCode, soldOutVersion);
+                    return SeckillError.SOLD_OUT.result();
+                }
+                ledgerReserved = true;
             }
             
-            SeckillProduct product = productOpt.get();
-            
-            // 6. 检查商品状态
-            if (!product.isInSeckillTime()) {
-                return SeckillResult.failed("商品不在秒杀时间内");
+            // 6. Redis脚本原子去重并预占库存
+            if (reserveScriptEnabled) {
+                RedisService.ReserveResult reserveResult = redisService.reserveStock(productCode, userId, quantity);
+                if (reserveResult == RedisService.ReserveResult.NOT_INITIALIZED) {
+                    if (product == null) {
+                        product = findProduct(productCode);
+                    }
+                    if (product == null) {
+                        return SeckillError.PRODUCT_NOT_FOUND.result();
+                    }
+                    redisService.initStock(productCode, product.getAvailableStock());
+                    reserveResult = redisService.reserveStock(productCode, userId, quantity);
+                }
+                if (reserveResult == RedisService.ReserveResult.ALREADY_BOUGHT) {
+                    return SeckillError.ALREADY_BOUGHT.result();
+                }
+                if (reserveResult != RedisService.ReserveResult.RESERVED) {
+                    soldOutGate.markSoldOut(productCode, soldOutVersion);
+                    return SeckillError.SOLD_OUT.result();
+                }
+                redisReserved = true;
             }
             
-            if (!product.hasStock()) {
-                return SeckillResult.failed("商品已售罄");
+            // 7. 获取商品信息
+            if (product == null) {
+                product = findProduct(productCode);
+            }
+            if (product == null) {
+                return SeckillError.PRODUCT_NOT_FOUND.result();
             }
             
-            // 7. 检查用户是否已经购买过
-            long userPurchases = orderRepository.countUserPurchases(userId, product.getId());
-            if (userPurchases > 0) {
-                return SeckillResult.failed("您已经抢购过该商品");
+            // 8. 集群模式下租约已丢失时放弃下单，避免与新持有者并发写入
+            if (lock != null && !lock.isValid()) {
+                return SeckillError.TOO_FREQUENT.result();
             }
             
-            // 8. 执行库存扣减和订单创建
-            return executeSeckill(userId, product, quantity);
+            // 9. 在事务中检查商品状态和购买记录，执行库存扣减和订单创建
+            boolean fromLedger = ledgerReserved;
+            boolean fromRedis = redisReserved;
+            LockManager.LockHandle held = lock;
+            result = retryOnConflict(product, current -> self.confirmOrder(
+                    userId, current, quantity, soldOutVersion, fromLedger, fromRedis, held));
+            return result;
             
         } catch (Exception e) {
-            return SeckillResult.failed("系统异常：" + e.getMessage());
+            System.err.println("秒杀下单异常 - 用户ID:" + userId + ", 商品:" + productCode + ", 原因:" + e.getMessage());
+            return SeckillError.SYSTEM_ERROR.result();
         } finally {
-            // 9. 释放分布式锁
-            redisService.releaseLock(lockKey, lockValue);
+            // 10. 下单未成功时归还预占库存
+            if (result == null || !result.isSuccess()) {
+                releaseReservation(productCode, userId, quantity, ledgerReserved, redisReserved);
+            }
+            // 11. 订单事务结束后释放用户锁：提前释放时，下一个请求会在订单提交前通过重复购买检查
+            if (lock != null) {
+                closeAfterCompletion(lock);
+            }
         }
     }
     
     /**
-     * 执行秒杀核心逻辑
+     * 环形缓冲引擎下单：引擎判定库存和重复购买并扣减数据库库存，当前事务只创建订单；
+     * 订单创建失败或事务回滚时通知引擎归还
      */
     @Transactional
-    public SeckillResult executeSeckill(Long userId, SeckillProduct product, Integer quantity) {
-        // 1. 使用乐观锁扣减库存
-        int affectedRows = productRepository.deductStockWithVersion(
-                product.getId(), quantity, product.getVersion());
+    public SeckillResult doSeckillWithEngine(Long userId, String productCode, Integer quantity) {
+        SeckillProduct product = productCache.get(productCode).orElse(null);
+        if (product == null) {
+            return SeckillError.PRODUCT_NOT_FOUND.result();
+        }
+        if (!product.isInSeckillTime()) {
+            return SeckillError.NOT_IN_SECKILL_TIME.result();
+        }
+        // 引擎只记录本次运行中的购买用户，历史订单仍由位图和数据库确认
+        if (hasPurchased(userId, product.getId())) {
+            return SeckillError.ALREADY_BOUGHT.result();
+        }
+        
+        SeckillError rejected = seckillEngine.acquire(product, userId, quantity);
+        if (rejected != null) {
+            return rejected.result();
+        }
+        SeckillResult result = null;
+        try {
+            result = createOrder(userId, product, quantity);
+            if (result.isSuccess()) {
+                runOnRollback(() -> seckillEngine.release(productCode, userId, quantity));
+            }
+            return result;
+        } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            System.err.println("秒杀下单异常 - 用户ID:" + userId + ", 商品:" + productCode + ", 原因:" + e.getMessage());
+            return SeckillError.SYSTEM_ERROR.result();
+        } finally {
+            if (result == null || !result.isSuccess()) {
+                seckillEngine.release(productCode, userId, quantity);
+            }
+        }
+    }
+    
+    /**
+     * 确认已预占的订单（非阻塞下单接口的落库阶段）
+     * 调用方已完成Redis去重和库存预占、以及可选的账本预占；下单失败或事务回滚时归还预占，
+     * 版本冲突时保留预占在新事务中重试
+     */
+    public SeckillResult confirmReservation(Long userId, String productCode, Integer quantity, boolean fromLedger) {
+        SeckillResult result = null;
+        try {
+            long soldOutVersion = soldOutGate.version(productCode);
+            SeckillProduct product = findProduct(productCode);
+            if (product == null) {
+                return SeckillError.PRODUCT_NOT_FOUND.result();
+            }
+            result = retryOnConflict(product, current -> self.confirmOrder(
+                    userId, current, quantity, soldOutVersion, fromLedger, true, null));
+            return result;
+        } catch (Exception e) {
+            System.err.println("确认订单异常 - 用户ID:" + userId + ", 商品:" + productCode + ", 原因:" + e.getMessage());
+            return SeckillError.SYSTEM_ERROR.result();
+        } finally {
+            if (result == null || !result.isSuccess()) {
+                releaseReservation(productCode, userId, quantity, fromLedger, true);
+            }
+        }
+    }
+    
+    /**
+     * 在一个事务中检查商品状态和购买记录、扣减库存并创建订单，库存已由调用方预占；
+     * 成功后事务回滚时归还预占，未成功时由调用方归还或保留预占重试
+     */
+    @Transactional
+    public SeckillResult confirmOrder(Long userId, SeckillProduct product, Integer quantity, long soldOutVersion,
+                                      boolean fromLedger, boolean fromRedis, LockManager.LockHandle lock) {
+        try {
+            SeckillResult result = checkAndExecute(userId, product, quantity, soldOutVersion);
+            if (result.isSuccess() && lock != null && !lock.isValid()) {
+                // 写入期间租约丢失，新持有者可能已经通过重复购买检查，回滚本次写入
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return SeckillError.TOO_FREQUENT.result();
+            }
+            if (result.isSuccess() && (fromLedger || fromRedis)) {
+                // 事务最终回滚时归还预占库存
+                String productCode = product.getProductCode();
+                runOnRollback(() -> releaseReservation(productCode, userId, quantity, fromLedger, fromRedis));
+            }
+            return result;
+        } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            System.err.println("确认订单异常 - 用户ID:" + userId + ", 商品:" + product.getProductCode()
+                    + ", 原因:" + e.getMessage());
+            return SeckillError.SYSTEM_ERROR.result();
+        }
+    }
+    
+    /**
+     * 检查商品状态和用户购买记录，通过后扣减库存并创建订单
+     * soldOutVersion 为读取商品库存之前的售罄标记版本号
+     */
+    private SeckillResult checkAndExecute(Long userId, SeckillProduct product, Integer quantity,
+                                          long soldOutVersion) {
+        if (!product.isInSeckillTime()) {
+            return SeckillError.NOT_IN_SECKILL_TIME.result();
+        }
         
-        if (affectedRows == 0) {
-            return SeckillResult.failed("库存不足，抢购失败");
+        if (!product.hasStock()) {
+            soldOutGate.markSoldOut(product.getProductCode(), soldOutVersion);
+            return SeckillError.SOLD_OUT.result();
+        }
+        
+        if (hasPurchased(userId, product.getId())) {
+            return SeckillError.ALREADY_BOUGHT.result();
+        }
+        
+        return executeSeckill(userId, product, quantity, soldOutVersion);
+    }
+    
+    /**
+     * 用户是否已购买：异步落库队列中的订单数据库查不到，先查队列；
+     * 购买位图未命中时无需查询数据库。检查与创建订单之间不加锁，调用方需保证同一用户的请求
+     * 在下单事务结束前串行（用户锁、预占脚本或下单引擎）
+     */
+    private boolean hasPurchased(Long userId, Long productId) {
+        return orderWriteBehind.hasPendingOrder(userId, productId)
+                || (buyerRegistry.mightHaveBought(productId, userId)
+                        && orderRepository.countUserPurchases(userId, productId) > 0);
+    }
+    
+    /**
+     * 应用启动完成后按数据库可用库存重置活跃商品的Redis库存计数器和已购用户集合，
+     * 避免沿用上次运行残留的计数器（数据库重建后商品显示售罄或用户显示已购买）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resetReservationStock() {
+        if (!reserveScriptEnabled) {
+            return;
+        }
+        List<SeckillProduct> products = productRepository.findByActiveTrue();
+        for (SeckillProduct product : products) {
+            redisService.resetStock(product.getProductCode(), product.getAvailableStock());
+        }
+        System.out.println("Redis库存计数器已按数据库重置，商品数:" + products.size());
+    }
+    
+    /**
+     * 按数据库可用库存初始化Redis库存计数器（已初始化时不覆盖）
+     */
+    @Transactional(readOnly = true)
+    public boolean initReservationStock(String productCode) {
+        SeckillProduct product = findProduct(productCode);
+        if (product == null) {
+            return false;
+        }
+        redisService.initStock(productCode, product.getAvailableStock());
+        return true;
+    }
+    
+    /**
+     * 执行秒杀核心逻辑，版本冲突时重新读取商品后在新事务中重试
+     * 不做用户去重，调用方需保证同一用户不会并发调用（基准测试每次使用新用户）
+     */
+    public SeckillResult executeSeckill(Long userId, SeckillProduct product, Integer quantity) {
+        return retryOnConflict(product, current -> self.executeSeckillAttempt(userId, current, quantity));
+    }
+    
+    /**
+     * 在一个事务中执行一次扣减库存和创建订单
+     */
+    @Transactional
+    public SeckillResult executeSeckillAttempt(Long userId, SeckillProduct product, Integer quantity) {
+        return executeSeckill(userId, product, quantity, soldOutGate.version(product.getProductCode()));
+    }
+    
+    private SeckillResult executeSeckill(Long userId, SeckillProduct product, Integer quantity,
+                                         long soldOutVersion) {
+        // 1. 按配置的策略扣减库存；库存仍充足说明版本冲突，由调用方在新事务中重试
+        if (!deductStock(product, quantity)) {
+            if (productRepository.hasEnoughStock(product.getId(), quantity)) {
+                return SeckillError.STOCK_CONFLICT.result();
+            }
+            if (!productRepository.hasEnoughStock(product.getId(), 1)) {
+                soldOutGate.markSoldOut(product.getProductCode(), soldOutVersion);
+            }
+            return SeckillError.STOCK_NOT_ENOUGH.result();
         }
         
-        // 2. 创建订单
+        return createOrder(userId, product, quantity);
+    }
+    
+    /**
+     * 库存已扣减后创建订单、记录购买用户并更新库存缓存
+     */
+    private SeckillResult createOrder(Long userId, SeckillProduct product, Integer quantity) {
+        // 1. 创建订单
         String orderNo = generateOrderNo();
         SeckillOrder order = new SeckillOrder(
                 orderNo, userId, product.getId(), quantity,
@@ -115,61 +459,122 @@ public class SeckillService {
                 SeckillOrder.OrderStatus.SUCCESS
         );
         
-        // 3. 保存订单
-        SeckillOrder savedOrder = orderRepository.save(order);
+        // 2. 保存订单（开启异步落库时占用队列槽位，事务提交后入队批量写入）
+        SeckillOrder savedOrder;
+        if (orderWriteBehind.isEnabled()) {
+            if (!orderWriteBehind.enqueueAfterCommit(order)) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return SeckillError.QUEUE_FULL.result();
+            }
+            savedOrder = order;
+        } else {
+            savedOrder = orderRepository.save(order);
+        }
         
-        // 4. 更新缓存
-        String stockKey = "seckill:stock:" + product.getProductCode();
-        redisService.set(stockKey, String.valueOf(product.getAvailableStock() - quantity), 300);
+        // 3. 记录购买用户，后续重复请求由位图拦截后再查库确认
+        buyerRegistry.record(product.getId(), userId);
         
-        // 5. 记录成功日志
-        String successLog = String.format("秒杀成功 - 用户ID:%d, 商品:%s, 订单号:%s", 
-                userId, product.getProductName(), orderNo);
-        System.out.println(successLog);
+        // 4. 更新缓存（预占脚本模式下库存计数器由脚本维护，引擎模式下库存只由引擎判定）
+        if (!reserveScriptEnabled && !seckillEngine.isEnabled()) {
+            String stockKey = RedisService.stockKey(product.getProductCode());
+            redisService.set(stockKey, String.valueOf(product.getAvailableStock() - quantity), 300);
+        }
         
-        return SeckillResult.success(savedOrder);
+        return SeckillResult.success(new OrderReceipt(savedOrder));
     }
     
     /**
      * 异步执行秒杀（用于高并发场景）
+     * 返回 ListenableFuture 使任务在队列中以 FutureTask 形式存在，被拒绝策略丢弃时可取消并通知调用方；
+     * 队列已满且策略为 abort 时调用即抛出 TaskRejectedException
      */
     @Async("seckillExecutor")
-    public CompletableFuture<SeckillResult> doSeckillAsync(Long userId, String productCode, Integer quantity) {
+    public ListenableFuture<SeckillResult> doSeckillAsync(Long userId, String productCode, Integer quantity) {
         try {
             SeckillResult result = doSeckill(userId, productCode, quantity);
-            return CompletableFuture.completedFuture(result);
+            return new AsyncResult<>(result);
         } catch (Exception e) {
-            return CompletableFuture.completedFuture(SeckillResult.failed("异步执行失败：" + e.getMessage()));
+            System.err.println("异步秒杀执行失败 - 用户ID:" + userId + ", 商品:" + productCode + ", 原因:" + e.getMessage());
+            return new AsyncResult<>(SeckillError.SYSTEM_ERROR.result());
+        }
+    }
+    
+    /**
+     * 恢复商品库存（补货或取消订单）
+     * 同步归还内存账本和Redis库存计数器，并清除售罄标记
+     */
+    @Transactional
+    public boolean restoreStock(String productCode, Integer quantity) {
+        if (productCode == null || quantity == null || quantity <= 0) {
+            return false;
+        }
+        SeckillProduct product = findProduct(productCode);
+        if (product == null || productRepository.restoreStock(product.getId(), quantity) == 0) {
+            return false;
+        }
+        stockLedger.release(productCode, quantity);
+        String stockKey = RedisService.stockKey(productCode);
+        if (reserveScriptEnabled && redisService.exists(stockKey)) {
+            redisService.incr(stockKey, quantity);
         }
+        soldOutGate.reset(productCode);
+        eventPublisher.publishEvent(new ProductChangedEvent(productCode, true));
+        return true;
     }
     
     /**
-     * 查询商品信息
+     * 异步落库重试耗尽、订单丢失时归还库存和购买资格：
+     * 引擎模式由引擎归还，否则归还数据库库存、内存账本和Redis预占；抛出异常时由落库服务记为死信
      */
-    @Cacheable(value = "products", key = "#productCode")
+    @EventListener
+    @Transactional
+    public void onOrderPersistFailed(OrderPersistFailedEvent event) {
+        SeckillOrder order = event.getOrder();
+        SeckillProduct product = productRepository.findById(order.getProductId())
+                .orElseThrow(() -> new IllegalStateException("商品不存在: " + order.getProductId()));
+        String productCode = product.getProductCode();
+        if (seckillEngine.isEnabled()) {
+            seckillEngine.release(productCode, order.getUserId(), order.getQuantity());
+            return;
+        }
+        if (productRepository.restoreStock(product.getId(), order.getQuantity()) == 0) {
+            throw new IllegalStateException("归还数据库库存失败: " + productCode);
+        }
+        releaseReservation(productCode, order.getUserId(), order.getQuantity(), ledgerEnabled, reserveScriptEnabled);
+        if (!ledgerEnabled && !reserveScriptEnabled) {
+            soldOutGate.reset(productCode);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productCode, true));
+    }
+    
+    /**
+     * 查询商品信息（两级缓存，库存单独获取）
+     */
+    @Transactional(readOnly = true)
     public Optional<SeckillProduct> getProductByCode(String productCode) {
-        return productRepository.findByProductCode(productCode);
+        return productCache.get(productCode);
     }
     
     /**
      * 获取所有活跃的秒杀商品
      */
+    @Transactional(readOnly = true)
     public List<SeckillProduct> getActiveProducts() {
         return productRepository.findByActiveTrue();
     }
     
     /**
-     * 批量查询商品信息
+     * 批量查询商品信息（按请求顺序返回，数量超过上限时抛出IllegalArgumentException）
      */
+    @Transactional(readOnly = true)
     public List<SeckillProduct> getProductsByCodes(List<String> productCodes) {
-        return productRepository.findAll().stream()
-                .filter(p -> productCodes.contains(p.getProductCode()))
-                .toList();
+        return productCache.getAll(productCodes);
     }
     
     /**
      * 查询用户订单
      */
+    @Transactional(readOnly = true)
     public List<SeckillOrder> getUserOrders(Long userId) {
         return orderRepository.findByUserId(userId);
     }
@@ -177,6 +582,7 @@ public class SeckillService {
     /**
      * 获取商品销售统计
      */
+    @Transactional(readOnly = true)
     public ProductStats getProductStats(Long productId) {
         Long totalSales = orderRepository.countTotalSales(productId);
         Long successOrders = orderRepository.countSuccessOrders(productId);
@@ -198,39 +604,175 @@ public class SeckillService {
         );
     }
     
+    private SeckillProduct findProduct(String productCode) {
+        return productRepository.findByProductCode(productCode).orElse(null);
+    }
+    
+    /**
+     * 归还内存账本和Redis中预占的库存
+     */
+    private void releaseReservation(String productCode, Long userId, int quantity,
+                                    boolean fromLedger, boolean fromRedis) {
+        if (fromLedger) {
+            stockLedger.release(productCode, quantity);
+        }
+        if (fromRedis) {
+            redisService.cancelReservation(productCode, userId, quantity);
+        }
+        if (fromLedger || fromRedis) {
+            soldOutGate.reset(productCode);
+        }
+    }
+    
+    /**
+     * 执行库存扣减并记录耗时与成功率
+     */
+    private boolean deductStock(SeckillProduct product, int quantity) {
+        long start = System.nanoTime();
+        boolean deducted = stockDeductionStrategy.deduct(product, quantity);
+        (deducted ? deductionSuccessTimer : deductionFailedTimer)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return deducted;
+    }
+    
+    /**
+     * 版本冲突时按指数退避加随机抖动重试，每次重试重新读取商品并在独立事务中执行，等待期间不持有数据库连接；
+     * 调用方已开启事务时无法在新事务中重试，直接返回结果
+     */
+    private SeckillResult retryOnConflict(SeckillProduct product, Function<SeckillProduct, SeckillResult> attempt) {
+        SeckillResult result = attempt.apply(product);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return result;
+        }
+        SeckillProduct current = product;
+        for (int i = 0; i < maxRetry && result.getError() == SeckillError.STOCK_CONFLICT; i++) {
+            backoff(i);
+            current = reload(current);
+            if (current == null) {
+                return SeckillError.PRODUCT_NOT_FOUND.result();
+            }
+            result = attempt.apply(current);
+        }
+        return result;
+    }
+    
+    /**
+     * 从数据库重新读取商品；开启 open-in-view 时商品仍托管在请求的持久化上下文中，
+     * 直接查询会返回带旧版本号的同一实例，先分离再查询
+     */
+    private SeckillProduct reload(SeckillProduct product) {
+        if (entityManager.contains(product)) {
+            entityManager.detach(product);
+        }
+        return productRepository.findById(product.getId()).orElse(null);
+    }
+    
+    private void backoff(int attempt) {
+        long bound = retryBackoffMillis << attempt;
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 注册事务回滚后的补偿动作，无事务时不做处理
+     */
+    private void runOnRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * 事务提交或回滚后释放锁，无事务时立即释放
+     */
+    private void closeAfterCompletion(LockManager.LockHandle lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.close();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.close();
+            }
+        });
+    }
+    
     /**
      * 生成订单号
      */
     private String generateOrderNo() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.format("%03d", ThreadLocalRandom.current().nextInt(1000));
-        return "SK" + timestamp + random;
+        return orderIdGenerator.nextOrderNo();
     }
     
     // 内部静态类
+    /**
+     * 下单结果：失败时为错误码对应的预分配实例，成功时携带精简回执；
+     * 由 SeckillResultSerializer 直接写出，不经过反射
+     */
+    @JsonSerialize(using = SeckillResultSerializer.class)
     public static class SeckillResult {
-        private boolean success;
-        private String message;
-        private Object data;
+        private final SeckillError error;
+        private final OrderReceipt receipt;
+        
+        private SeckillResult(SeckillError error, OrderReceipt receipt) {
+            this.error = error;
+            this.receipt = receipt;
+        }
         
-        private SeckillResult(boolean success, String message, Object data) {
-            this.success = success;
-            this.message = message;
-            this.data = data;
+        public static SeckillResult success(OrderReceipt receipt) {
+            return new SeckillResult(null, receipt);
         }
         
-        public static SeckillResult success(Object data) {
-            return new SeckillResult(true, "success", data);
+        static SeckillResult failed(SeckillError error) {
+            return new SeckillResult(error, null);
         }
         
-        public static SeckillResult failed(String message) {
-            return new SeckillResult(false, message, null);
+        // Getters
+        public boolean isSuccess() { return error == null; }
+        public SeckillError getError() { return error; }
+        public String getMessage() { return error == null ? "success" : error.getMessage(); }
+        public OrderReceipt getData() { return receipt; }
+    }
+    
+    /**
+     * 下单成功回执，只包含客户端需要的订单字段
+     */
+    public static class OrderReceipt {
+        private final String orderNo;
+        private final long userId;
+        private final long productId;
+        private final int quantity;
+        private final BigDecimal totalAmount;
+        
+        public OrderReceipt(SeckillOrder order) {
+            this.orderNo = order.getOrderNo();
+            this.userId = order.getUserId();
+            this.productId = order.getProductId();
+            this.quantity = order.getQuantity();
+            this.totalAmount = order.getTotalAmount();
         }
         
         // Getters
-        public boolean isSuccess() { return success; }
-        public String getMessage() { return message; }
-        public Object getData() { return data; }
+        public String getOrderNo() { return orderNo; }
+        public long getUserId() { return userId; }
+        public long getProductId() { return productId; }
+        public int getQuantity() { return quantity; }
+        public BigDecimal getTotalAmount() { return totalAmount; }
     }
     
     public static class ProductStats {
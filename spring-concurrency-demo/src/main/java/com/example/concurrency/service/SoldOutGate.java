@@ -0,0 +1,55 @@
+package com.example.concurrency.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地售罄标记
+ * 商品售罄后在控制器入口直接拒绝请求，不再访问Redis和数据库；
+ * 预占库存被归还或通过 restoreStock 补货时清除标记。
+ * 每次清除都会推进商品的版本号，调用方在观察库存前读取版本号，标记时版本号已变化说明
+ * 期间有库存归还，本次标记作废，避免归还先于标记完成时商品一直停留在售罄状态
+ */
+@Component
+public class SoldOutGate {
+
+    private final Set<String> soldOutProducts = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public boolean isSoldOut(String productCode) {
+        return soldOutProducts.contains(productCode);
+    }
+
+    /**
+     * 当前版本号，需在读取库存之前获取并传给 markSoldOut
+     */
+    public long version(String productCode) {
+        AtomicLong version = versions.get(productCode);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 标记售罄；observedVersion 之后发生过 reset 时不标记
+     * 先写标记再复查版本号：reset 先推进版本号再移除标记，两者交错时至少一方会清除标记
+     */
+    public boolean markSoldOut(String productCode, long observedVersion) {
+        if (version(productCode) != observedVersion) {
+            return false;
+        }
+        soldOutProducts.add(productCode);
+        if (version(productCode) != observedVersion) {
+            soldOutProducts.remove(productCode);
+            return false;
+        }
+        return true;
+    }
+
+    public void reset(String productCode) {
+        versions.computeIfAbsent(productCode, code -> new AtomicLong()).incrementAndGet();
+        soldOutProducts.remove(productCode);
+    }
+}
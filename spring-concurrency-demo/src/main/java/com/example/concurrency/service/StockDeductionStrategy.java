@@ -0,0 +1,21 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+
+/**
+ * 库存扣减策略
+ * 通过 seckill.stock.strategy 配置选择具体实现
+ */
+public interface StockDeductionStrategy {
+
+    /**
+     * 策略名称，对应 seckill.stock.strategy 的取值
+     */
+    String getName();
+
+    /**
+     * 在当前事务中扣减库存
+     * @return 扣减成功返回true，库存不足或版本冲突返回false
+     */
+    boolean deduct(SeckillProduct product, int quantity);
+}
@@ -0,0 +1,185 @@
+package com.example.concurrency.service;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 内存分片库存账本
+ * 活动开始时按商品可用库存预热，使用分段原子计数器无锁预占库存，
+ * 数据库扣减只负责确认已预占的库存，售罄请求直接在内存中拒绝
+ */
+@Component
+public class StockLedger {
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Value("${seckill.ledger.stripes:8}")
+    private int stripes;
+
+    @Value("${seckill.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seckill.engine.mode:classic}")
+    private String engineMode;
+
+    private final Map<String, StripedStock> ledgers = new ConcurrentHashMap<>();
+
+    /**
+     * 应用启动完成后按活跃商品预热账本
+     * 账本关闭或环形引擎模式下不预热：这些路径不经过账本扣减，预热的账本只会停留在初始库存
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpActiveProducts() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (SeckillProduct product : productRepository.findByActiveTrue()) {
+            warmUp(product.getProductCode(), product.getAvailableStock());
+        }
+        System.out.println("库存账本预热完成，商品数:" + ledgers.size());
+    }
+
+    /**
+     * 下单路径是否通过账本预占库存
+     */
+    public boolean isEnabled() {
+        return enabled && !"ring".equals(engineMode);
+    }
+
+    /**
+     * 用数据库可用库存初始化（或重置）商品账本
+     */
+    public void warmUp(String productCode, int availableStock) {
+        ledgers.put(productCode, new StripedStock(stripes, availableStock));
+    }
+
+    /**
+     * 账本未初始化时才用给定库存初始化，避免覆盖已有预占
+     */
+    public void warmUpIfAbsent(String productCode, int availableStock) {
+        ledgers.computeIfAbsent(productCode, code -> new StripedStock(stripes, availableStock));
+    }
+
+    /**
+     * 商品账本是否已预热
+     */
+    public boolean contains(String productCode) {
+        return ledgers.containsKey(productCode);
+    }
+
+    /**
+     * 预占库存
+     * @return 预占成功返回true，库存不足或账本未预热返回false
+     */
+    public boolean tryReserve(String productCode, int quantity) {
+        StripedStock stock = ledgers.get(productCode);
+        return stock != null && stock.tryReserve(quantity);
+    }
+
+    /**
+     * 归还预占的库存（下单失败或事务回滚时调用）
+     */
+    public void release(String productCode, int quantity) {
+        StripedStock stock = ledgers.get(productCode);
+        if (stock != null) {
+            stock.release(quantity);
+        }
+    }
+
+    /**
+     * 当前账本剩余库存，未预热返回-1
+     */
+    public int available(String productCode) {
+        StripedStock stock = ledgers.get(productCode);
+        return stock != null ? stock.sum() : -1;
+    }
+
+    /**
+     * 移除商品账本，下次访问时重新预热
+     */
+    public void evict(String productCode) {
+        ledgers.remove(productCode);
+    }
+
+    /**
+     * 分段库存计数器
+     * 库存均匀分布在多个槽位上，线程优先从自己的槽位扣减，减少CAS冲突
+     */
+    static final class StripedStock {
+
+        // 槽位间隔16个int（64字节），避免伪共享
+        private static final int PAD = 16;
+
+        private final int stripes;
+        private final AtomicIntegerArray cells;
+
+        StripedStock(int stripes, int initialStock) {
+            this.stripes = Math.max(1, stripes);
+            this.cells = new AtomicIntegerArray(this.stripes * PAD);
+            int base = Math.max(0, initialStock) / this.stripes;
+            int remainder = Math.max(0, initialStock) % this.stripes;
+            for (int i = 0; i < this.stripes; i++) {
+                cells.set(i * PAD, base + (i < remainder ? 1 : 0));
+            }
+        }
+
+        boolean tryReserve(int quantity) {
+            int home = homeStripe();
+            // 先尝试单个槽位整体扣减
+            for (int i = 0; i < stripes; i++) {
+                int index = ((home + i) % stripes) * PAD;
+                int current;
+                while ((current = cells.get(index)) >= quantity) {
+                    if (cells.compareAndSet(index, current, current - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            // 库存碎片化时跨槽位逐个扣减，失败则回滚
+            int taken = 0;
+            for (int i = 0; i < stripes && taken < quantity; i++) {
+                int index = ((home + i) % stripes) * PAD;
+                int current;
+                while (taken < quantity && (current = cells.get(index)) > 0) {
+                    int take = Math.min(current, quantity - taken);
+                    if (cells.compareAndSet(index, current, current - take)) {
+                        taken += take;
+                    }
+                }
+            }
+            if (taken < quantity) {
+                if (taken > 0) {
+                    cells.addAndGet(home * PAD, taken);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        void release(int quantity) {
+            cells.addAndGet(homeStripe() * PAD, quantity);
+        }
+
+        int sum() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.get(i * PAD);
+            }
+            return total;
+        }
+
+        private int homeStripe() {
+            return (int) (Thread.currentThread().getId() % stripes);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.AdmissionGate;
+import com.example.concurrency.service.ProductCache;
+import com.example.concurrency.service.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 商品级准入控制测试类
+ * 关闭账本时不预热账本，许可数只读内存中的库存：未预热时不限制并在后台预热，
+ * 预热后随数据库库存收缩，售罄后全部拒绝，归还库存后恢复；不占用计数的许可归还时不影响其他请求的许可
+ */
+@SpringBootTest(properties = {
+        "seckill.ledger.enabled=false",
+        "seckill.product-cache.stock-ttl-ms=300"
+})
+public class AdmissionGateTest {
+
+    @Autowired
+    private AdmissionGate admissionGate;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testLedgerIsNotWarmedWhenDisabled() {
+        assertFalse(stockLedger.isEnabled());
+        stockLedger.warmUpActiveProducts();
+        assertFalse(stockLedger.contains("IPHONE15PRO"));
+    }
+
+    @Test
+    public void testPermitsShrinkWithDatabaseStock() throws InterruptedException {
+        SeckillProduct product = saveProduct("ADMISSION_DB", 2);
+
+        // 剩余2件，倍数2.0，允许4个请求同时处理
+        awaitCachedStock("ADMISSION_DB", 2);
+        List<AdmissionGate.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            AdmissionGate.Permit permit = admissionGate.tryAcquire("ADMISSION_DB");
+            assertNotNull(permit);
+            permits.add(permit);
+        }
+        assertNull(admissionGate.tryAcquire("ADMISSION_DB"));
+        permits.forEach(AdmissionGate.Permit::release);
+
+        // 不经过账本的扣减（悲观锁、Redis预占、环形引擎）同样收缩许可
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, productRepository.deductStock(product.getId(), 2));
+        });
+        awaitCachedStock("ADMISSION_DB", 0);
+        assertNull(admissionGate.tryAcquire("ADMISSION_DB"));
+        assertEquals(0, admissionGate.getStats().get("ADMISSION_DB").getPermits());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, productRepository.restoreStock(product.getId(), 1));
+        });
+        awaitCachedStock("ADMISSION_DB", 1);
+        assertNotNull(admissionGate.tryAcquire("ADMISSION_DB"));
+        assertNotNull(admissionGate.tryAcquire("ADMISSION_DB"));
+        assertNull(admissionGate.tryAcquire("ADMISSION_DB"));
+    }
+
+    @Test
+    public void testColdProductIsAdmittedWithoutTakingPermit() throws InterruptedException {
+        saveProduct("ADMISSION_COLD", 1);
+
+        // 库存未预热时不做I/O、不限制，返回的许可不占用计数
+        AdmissionGate.Permit cold = admissionGate.tryAcquire("ADMISSION_COLD");
+        assertSame(AdmissionGate.Permit.UNLIMITED, cold);
+
+        awaitCachedStock("ADMISSION_COLD", 1);
+        assertNotNull(admissionGate.tryAcquire("ADMISSION_COLD"));
+        assertNotNull(admissionGate.tryAcquire("ADMISSION_COLD"));
+        assertNull(admissionGate.tryAcquire("ADMISSION_COLD"));
+
+        // 预热前放行的请求结束后归还，不能释放其他请求占用的许可
+        cold.release();
+        assertNull(admissionGate.tryAcquire("ADMISSION_COLD"));
+        assertEquals(2, admissionGate.getStats().get("ADMISSION_COLD").getInFlight());
+    }
+
+    @Test
+    public void testUnknownProductIsNotLimited() {
+        AdmissionGate.Permit permit = admissionGate.tryAcquire("ADMISSION_UNKNOWN");
+        assertSame(AdmissionGate.Permit.UNLIMITED, permit);
+        permit.release();
+        assertFalse(admissionGate.getStats().containsKey("ADMISSION_UNKNOWN"));
+    }
+
+    private SeckillProduct saveProduct(String code, int stock) {
+        return productRepository.save(new SeckillProduct(code, "准入控制商品", stock, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+
+    /**
+     * 等待后台预热的本地库存缓存与数据库一致（缓存过期后再次访问会重新预热）
+     */
+    private void awaitCachedStock(String productCode, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (productCache.cachedAvailableStock(productCode) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, productCache.cachedAvailableStock(productCode));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillOrder;
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.BuyerRegistry;
+import com.example.concurrency.service.SeckillError;
+import com.example.concurrency.service.SeckillService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 购买用户位图测试类
+ * 验证命中、未命中（含相邻位和其他分块）、重建从订单表恢复且不丢失未落库的记录，
+ * 以及回滚等原因造成的多报由数据库确认后仍可下单。
+ * 使用独立的内存库：各测试上下文共用同名内存库时，新上下文重建表结构会重置订单序列，
+ * 已缓存序列段的上下文随后写入订单会主键冲突
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:buyer_registry_test")
+public class BuyerRegistryTest {
+
+    @Autowired
+    private BuyerRegistry buyerRegistry;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Test
+    public void testHitAndMiss() {
+        Long productId = saveProduct("BUYER_BITMAP").getId();
+        buyerRegistry.record(productId, 4_096_000L);
+
+        assertTrue(buyerRegistry.mightHaveBought(productId, 4_096_000L));
+        // 同一字内的相邻位、相邻分块和其他商品都不命中
+        assertFalse(buyerRegistry.mightHaveBought(productId, 4_096_001L));
+        assertFalse(buyerRegistry.mightHaveBought(productId, 4_095_999L));
+        assertFalse(buyerRegistry.mightHaveBought(productId, 4_096_000L + 4096));
+        assertFalse(buyerRegistry.mightHaveBought(productId + 1, 4_096_000L));
+        // 负数用户ID无法放入位图，交给数据库确认
+        assertTrue(buyerRegistry.mightHaveBought(productId, -1L));
+    }
+
+    @Test
+    public void testRebuildRestoresOrdersAndKeepsRecords() {
+        Long productId = saveProduct("BUYER_REBUILD").getId();
+        orderRepository.save(new SeckillOrder("BUYER_REBUILD_1", 971001L, productId, 1,
+                new BigDecimal("1.00"), SeckillOrder.OrderStatus.SUCCESS));
+        orderRepository.save(new SeckillOrder("BUYER_REBUILD_2", 971002L, productId, 1,
+                new BigDecimal("1.00"), SeckillOrder.OrderStatus.FAILED));
+        // 尚未提交的下单已记录但订单表中查不到
+        buyerRegistry.record(productId, 971003L);
+
+        buyerRegistry.rebuild();
+
+        assertTrue(buyerRegistry.mightHaveBought(productId, 971001L));
+        assertFalse(buyerRegistry.mightHaveBought(productId, 971002L));
+        assertTrue(buyerRegistry.mightHaveBought(productId, 971003L));
+    }
+
+    @Test
+    public void testFalsePositiveIsConfirmedByDatabase() {
+        Long productId = saveProduct("BUYER_FALSE_POSITIVE").getId();
+        // 订单回滚后位图仍保留该用户
+        buyerRegistry.record(productId, 972001L);
+
+        assertTrue(seckillService.doSeckill(972001L, "BUYER_FALSE_POSITIVE", 1).isSuccess());
+        assertEquals(SeckillError.ALREADY_BOUGHT,
+                seckillService.doSeckill(972001L, "BUYER_FALSE_POSITIVE", 1).getError());
+        assertEquals(1, orderRepository.countUserPurchases(972001L, productId).intValue());
+    }
+
+    private SeckillProduct saveProduct(String productCode) {
+        return productRepository.save(new SeckillProduct(
+                productCode, "购买位图测试商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+}
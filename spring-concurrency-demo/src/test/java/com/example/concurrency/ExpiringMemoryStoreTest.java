@@ -0,0 +1,154 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.ExpiringMemoryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存过期存储测试类
+ * 验证时间轮后台清理（含自增、更新过的key）、单key原子操作和容量淘汰（不过期的条目从不淘汰）
+ */
+public class ExpiringMemoryStoreTest {
+
+    private final ExpiringMemoryStore store = new ExpiringMemoryStore(1000, 5);
+
+    @AfterEach
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    public void testReaperRemovesExpiredEntriesWithoutReads() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            store.set("short:" + i, "v", 50);
+        }
+        store.set("long", "v", 60000);
+        store.set("forever", "v", 0);
+
+        // 不读取，等待时间轮清理
+        long deadline = System.currentTimeMillis() + 2000;
+        while (store.size() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, store.size());
+        assertEquals(100, store.getExpiredCount());
+        assertEquals(-1, store.ttlMillis("forever"));
+        assertTrue(store.ttlMillis("long") > 0);
+    }
+
+    @Test
+    public void testReaperRemovesIncrementedAndUpdatedEntries() throws InterruptedException {
+        store.set("counter", "0", 50);
+        store.incr("counter", 1);
+        store.set("value", "a", 50);
+        store.update("value", current -> current + "b");
+        assertEquals("ab", store.get("value"));
+
+        // 自增和更新替换了条目实例，原定时器仍应按过期时间清理
+        long deadline = System.currentTimeMillis() + 2000;
+        while (store.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, store.size());
+        assertEquals(2, store.getExpiredCount());
+    }
+
+    @Test
+    public void testOverwriteKeepsNewDeadline() throws InterruptedException {
+        store.set("key", "old", 30);
+        store.set("key", "new", 60000);
+        Thread.sleep(100);
+        assertEquals("new", store.get("key"));
+    }
+
+    @Test
+    public void testLockOperationsAreAtomic() throws InterruptedException {
+        int threads = 16;
+        AtomicInteger acquired = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            String owner = "owner-" + i;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (store.setIfAbsent("lock", owner, 10000)) {
+                        acquired.incrementAndGet();
+                    }
+                    for (int j = 0; j < 1000; j++) {
+                        store.incr("counter", 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1, acquired.get());
+        assertEquals(String.valueOf(threads * 1000), store.get("counter"));
+
+        String owner = store.get("lock");
+        assertFalse(store.compareAndDelete("lock", "someone-else"));
+        assertTrue(store.compareAndDelete("lock", owner));
+        assertTrue(store.setIfAbsent("lock", "next", 10000));
+    }
+
+    @Test
+    public void testEvictionPrefersExpiringEntries() {
+        for (int i = 0; i < 500; i++) {
+            store.set("persistent:" + i, "v", 0);
+        }
+        for (int i = 0; i < 2000; i++) {
+            store.set("session:" + i, "v", 60000);
+        }
+
+        assertTrue(store.size() <= 1000);
+        assertEquals(1500, store.getEvictedCount());
+        for (int i = 0; i < 500; i++) {
+            assertNotNull(store.get("persistent:" + i));
+        }
+    }
+
+    @Test
+    public void testPersistentEntriesAreNeverEvicted() {
+        ExpiringMemoryStore small = new ExpiringMemoryStore(10, 5);
+        try {
+            for (int i = 0; i < 10; i++) {
+                small.incr("stock:" + i, 5);
+            }
+            Set<String> buyers = small.getOrCreateSet("buyers");
+            buyers.add("1");
+
+            // 只有不过期的条目时宁可超出上限也不淘汰
+            small.set("session", "v", 60000);
+            assertEquals(0, small.getEvictedCount());
+            assertEquals(12, small.size());
+            assertSame(buyers, small.getSet("buyers"));
+            for (int i = 0; i < 10; i++) {
+                assertEquals("5", small.get("stock:" + i));
+            }
+
+            // 有过期时间的条目仍可被淘汰
+            small.set("session-2", "v", 60000);
+            assertEquals(1, small.getEvictedCount());
+            assertNotNull(small.getSet("buyers"));
+        } finally {
+            small.shutdown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.GroupCommitStockDeduction;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 合并提交扣减策略测试类
+ * 验证库存不足时按到达顺序部分分配不超卖、请求事务回滚后归还库存，以及写线程关闭后回滚仍能归还
+ */
+@SpringBootTest
+public class GroupCommitStockDeductionTest {
+
+    @Autowired
+    private GroupCommitStockDeduction groupCommit;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testPartialBatchNeverOversells() throws InterruptedException {
+        SeckillProduct product = saveProduct("GROUP_PARTIAL", 5);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (groupCommit.deduct(product, 1)) {
+                        granted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(5, granted.get());
+        assertEquals(0, stock(product));
+    }
+
+    @Test
+    public void testRollbackRestoresStock() throws InterruptedException {
+        SeckillProduct product = saveProduct("GROUP_ROLLBACK", 3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(groupCommit.deduct(product, 2));
+            status.setRollbackOnly();
+        });
+
+        awaitTrue(() -> stock(product) == 3);
+        assertEquals(0, meterRegistry.counter("seckill.stock.group-commit.restore-failed").count());
+    }
+
+    @Test
+    @DirtiesContext
+    public void testRollbackAfterShutdownStillRestores() throws InterruptedException {
+        SeckillProduct product = saveProduct("GROUP_SHUTDOWN", 3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(groupCommit.deduct(product, 1));
+            // 事务结束前写线程已关闭，回滚归还在调用线程完成
+            try {
+                groupCommit.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3, stock(product));
+        // 关闭后不再接受新的合并扣减
+        assertFalse(groupCommit.deduct(product, 1));
+        assertEquals(3, stock(product));
+    }
+
+    private SeckillProduct saveProduct(String code, int stock) {
+        return productRepository.save(new SeckillProduct(code, "合并提交商品", stock, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+
+    private int stock(SeckillProduct product) {
+        return productRepository.findAvailableStock(product.getId()).orElse(-1);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.concurrency;
+
+import com.example.concurrency.config.InstrumentedTaskExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 线程池指标与拒绝策略测试类
+ * 单线程、队列容量1的线程池：第一个任务阻塞工作线程，第二个任务排队，第三个任务触发拒绝策略
+ */
+public class InstrumentedTaskExecutorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testAbortRejectsAndPublishesMetrics() throws Exception {
+        InstrumentedTaskExecutor executor = newExecutor(InstrumentedTaskExecutor.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submitListenable(() -> {
+                started.countDown();
+                return await(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            ListenableFuture<String> queued = executor.submitListenable(() -> "queued");
+            assertThrows(TaskRejectedException.class, () -> executor.submitListenable(() -> "rejected"));
+
+            assertEquals(1.0, meterRegistry.get("executor.rejected").tag("name", "test").counter().count());
+            assertEquals(1.0, meterRegistry.get("executor.queued").tag("name", "test").gauge().value());
+            assertEquals(1.0, meterRegistry.get("executor.active").tag("name", "test").gauge().value());
+
+            release.countDown();
+            assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+            assertEquals(2, meterRegistry.get("executor.queue.wait").tag("name", "test").timer().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiscardOldestCancelsQueuedTask() throws Exception {
+        InstrumentedTaskExecutor executor = newExecutor(InstrumentedTaskExecutor.DISCARD_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submitListenable(() -> await(release));
+            ListenableFuture<String> oldest = executor.submitListenable(() -> "oldest");
+            ListenableFuture<String> newest = executor.submitListenable(() -> "newest");
+
+            // 被丢弃任务的等待方立即收到取消，不会一直挂起
+            assertTrue(oldest.isCancelled());
+            release.countDown();
+            assertEquals("newest", newest.get(5, TimeUnit.SECONDS));
+            assertEquals(1.0, meterRegistry.get("executor.rejected").tag("policy", "discard-oldest").counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerRunsOnSubmittingThread() throws Exception {
+        InstrumentedTaskExecutor executor = newExecutor(InstrumentedTaskExecutor.CALLER_RUNS);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submitListenable(() -> await(release));
+            executor.submitListenable(() -> "queued");
+            ListenableFuture<String> overflow = executor.submitListenable(() -> Thread.currentThread().getName());
+
+            assertTrue(overflow.isDone());
+            assertEquals(Thread.currentThread().getName(), overflow.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnknownPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> newExecutor("drop-newest"));
+    }
+
+    private InstrumentedTaskExecutor newExecutor(String policy) {
+        InstrumentedTaskExecutor executor = new InstrumentedTaskExecutor("test", policy, meterRegistry);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        return executor;
+    }
+
+    private static String await(CountDownLatch latch) throws InterruptedException {
+        latch.await(5, TimeUnit.SECONDS);
+        return "blocker";
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.NonBlockingSeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 非阻塞下单测试类
+ * 验证 /api/v2 异步返回、重复购买拦截，以及大量并发请求下不超卖、订单数与库存一致
+ * 预占已保证库存不超卖，落库阶段使用原子更新，避免乐观锁重试耗尽造成少卖
+ */
+@SpringBootTest(properties = "seckill.stock.strategy=atomic")
+@AutoConfigureMockMvc
+public class NonBlockingSeckillTest {
+
+    private static final int STOCK = 100;
+    private static final int REQUESTS = 2000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NonBlockingSeckillService nonBlockingSeckillService;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Test
+    public void testOrderEndpoint() throws Exception {
+        saveProduct("NB_ENDPOINT");
+        MvcResult first = mockMvc.perform(post("/api/v2/seckill/order")
+                .param("userId", "910001")
+                .param("productCode", "NB_ENDPOINT"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.orderNo").exists());
+
+        MvcResult duplicate = mockMvc.perform(post("/api/v2/seckill/order")
+                .param("userId", "910001")
+                .param("productCode", "NB_ENDPOINT"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(duplicate))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("ALREADY_BOUGHT"));
+    }
+
+    @Test
+    public void testConcurrentOrdersDoNotOversell() throws Exception {
+        SeckillProduct product = saveProduct("NB_CONCURRENT");
+        List<CompletableFuture<SeckillResult>> results = new ArrayList<>();
+        // 单线程发起全部请求，等待结果期间不占用调用线程
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(nonBlockingSeckillService.placeOrder(920_000L + i, "NB_CONCURRENT", 1));
+        }
+        int sold = 0;
+        for (CompletableFuture<SeckillResult> result : results) {
+            if (result.get(60, TimeUnit.SECONDS).isSuccess()) {
+                sold++;
+            }
+        }
+        assertEquals(STOCK, sold);
+        assertEquals(0, productRepository.findByProductCode("NB_CONCURRENT").get().getAvailableStock());
+        assertEquals(STOCK, orderRepository.countSuccessOrders(product.getId()).intValue());
+    }
+
+    private SeckillProduct saveProduct(String productCode) {
+        return productRepository.save(new SeckillProduct(
+                productCode, "非阻塞下单测试商品", STOCK, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.OrderIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单号生成器测试类
+ * 验证多线程下ID不重复、时钟回拨时单调递增、回拨过大时有界等待后失败，并输出生成吞吐量
+ */
+public class OrderIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator(1, 16, System::currentTimeMillis);
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long[] slice = ids[t];
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        slice[i] = generator.nextId();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(ids[t], 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "订单ID重复");
+        }
+    }
+
+    @Test
+    public void testClockRollbackKeepsIdsIncreasing() {
+        AtomicLong now = new AtomicLong(1735689600000L);
+        OrderIdGenerator generator = new OrderIdGenerator(3, 1, now::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                now.addAndGet(-2_000);
+            } else if (i % 100 == 0) {
+                now.incrementAndGet();
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "时钟回拨后ID未递增");
+            previous = id;
+        }
+        assertTrue(generator.getClockRollbacks() > 0);
+    }
+
+    @Test
+    public void testLongClockRollbackFailsAfterBoundedWait() {
+        AtomicLong now = new AtomicLong(1735689600000L);
+        OrderIdGenerator generator = new OrderIdGenerator(1, 4096, now::get, 50);
+        generator.nextId();
+        // 回拨10秒且时钟停住：每毫秒序列用完后只能借用2秒
+        now.addAndGet(-10_000);
+
+        long begin = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 10_000; i++) {
+                generator.nextId();
+            }
+        });
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        assertTrue(waitedMillis < 5_000, "时钟回拨后等待时间无上限: " + waitedMillis);
+    }
+
+    @Test
+    public void testWaitsForClockToCatchUp() {
+        AtomicLong now = new AtomicLong(1735689600000L);
+        AtomicLong reads = new AtomicLong();
+        // 回拨3秒后，时钟每被读取一次前进1毫秒
+        OrderIdGenerator generator = new OrderIdGenerator(1, 4096, () -> now.get() + reads.incrementAndGet(), 10_000);
+        long previous = generator.nextId();
+        now.addAndGet(-3_000);
+
+        for (int i = 0; i < 3_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "等待时钟追上后ID未递增");
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testOrderNoIsFixedWidth() {
+        assertEquals("SK0000000000000000042", OrderIdGenerator.format(42));
+        assertEquals("SK" + Long.MAX_VALUE, OrderIdGenerator.format(Long.MAX_VALUE));
+
+        OrderIdGenerator generator = new OrderIdGenerator(1, 16, System::currentTimeMillis);
+        assertEquals(21, generator.nextOrderNo().length());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 排队下单测试类
+ * 验证提交返回202和票据、轮询到最终状态、重复提交返回同一票据、SSE推送结果，
+ * 以及其他用户查询或订阅票据时返回404
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderTicketTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testSubmitAndPoll() throws Exception {
+        saveProduct("TICKET_POLL");
+        String ticketId = submit(930001L, "TICKET_POLL");
+
+        // 重复提交返回同一票据
+        assertEquals(ticketId, submit(930001L, "TICKET_POLL"));
+
+        JsonNode ticket = null;
+        for (int i = 0; i < 100; i++) {
+            ticket = readData(mockMvc.perform(get("/api/v1/seckill/order/ticket/" + ticketId)
+                    .param("userId", "930001"))
+                    .andExpect(status().isOk())
+                    .andReturn());
+            if (!"PENDING".equals(ticket.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals("SUCCESS", ticket.get("status").asText());
+        assertTrue(ticket.get("result").get("data").has("orderNo"));
+    }
+
+    @Test
+    public void testStreamPushesResult() throws Exception {
+        saveProduct("TICKET_STREAM");
+        String ticketId = submit(930002L, "TICKET_STREAM");
+
+        MvcResult stream = mockMvc.perform(get("/api/v1/seckill/order/ticket/" + ticketId + "/stream")
+                .param("userId", "930002"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        stream.getAsyncResult(10_000);
+        String body = stream.getResponse().getContentAsString();
+        assertTrue(body.contains("event:result"), body);
+        assertTrue(body.contains("\"status\":\"SUCCESS\""), body);
+    }
+
+    @Test
+    public void testUnknownTicket() throws Exception {
+        mockMvc.perform(get("/api/v1/seckill/order/ticket/404").param("userId", "930003"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/v1/seckill/order/ticket")
+                .param("userId", "930003")
+                .param("productCode", "TICKET_UNKNOWN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("PRODUCT_NOT_FOUND"));
+    }
+
+    @Test
+    public void testOtherUserCannotReadTicket() throws Exception {
+        saveProduct("TICKET_OWNER");
+        String ticketId = submit(930004L, "TICKET_OWNER");
+
+        mockMvc.perform(get("/api/v1/seckill/order/ticket/" + ticketId).param("userId", "930005"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/seckill/order/ticket/" + ticketId + "/stream").param("userId", "930005"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/seckill/order/ticket/" + ticketId).param("userId", "930004"))
+                .andExpect(status().isOk());
+    }
+
+    private String submit(Long userId, String productCode) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/seckill/order/ticket")
+                .param("userId", String.valueOf(userId))
+                .param("productCode", productCode))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        return readData(result).get("ticketId").asText();
+    }
+
+    private JsonNode readData(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("data");
+    }
+
+    private void saveProduct(String productCode) {
+        productRepository.save(new SeckillProduct(
+                productCode, "排队下单测试商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillOrder;
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.OrderWriteBehindService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单异步落库测试类
+ * 验证批量写入、落库前重复购买可见、写入失败后归还库存，以及关闭时写完队列中的订单
+ */
+@SpringBootTest(properties = {
+        "seckill.order.write-behind.enabled=true",
+        "seckill.order.write-behind.batch-size=100",
+        "seckill.order.write-behind.retry-backoff-ms=1"
+})
+public class OrderWriteBehindTest {
+
+    @Autowired
+    private OrderWriteBehindService orderWriteBehind;
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testOrdersAreFlushedInBatches() throws InterruptedException {
+        double flushedBefore = counter("seckill.order.write-behind.flushed");
+        long batchesBefore = meterRegistry.get("seckill.order.write-behind.flush").timer().count();
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(orderWriteBehind.enqueueAfterCommit(order("WB-BATCH-" + i, 1000L + i, 1L)));
+        }
+        awaitTrue(() -> counter("seckill.order.write-behind.flushed") >= flushedBefore + 500);
+
+        assertTrue(orderRepository.findByOrderNo("WB-BATCH-0").isPresent());
+        assertTrue(orderRepository.findByOrderNo("WB-BATCH-499").isPresent());
+        long batches = meterRegistry.get("seckill.order.write-behind.flush").timer().count() - batchesBefore;
+        assertTrue(batches < 500, "订单没有按批次写入: " + batches);
+    }
+
+    @Test
+    public void testPendingOrderIsVisibleBeforeFlush() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(orderWriteBehind.enqueueAfterCommit(order("WB-PENDING", 2001L, 2L)));
+            // 提交前已占槽，重复购买检查可以看到
+            assertTrue(orderWriteBehind.hasPendingOrder(2001L, 2L));
+        });
+        awaitTrue(() -> orderRepository.findByOrderNo("WB-PENDING").isPresent());
+        awaitTrue(() -> !orderWriteBehind.hasPendingOrder(2001L, 2L));
+
+        // 回滚的订单不再视为已购买
+        transactionTemplate.executeWithoutResult(status -> {
+            orderWriteBehind.enqueueAfterCommit(order("WB-ROLLBACK", 2002L, 2L));
+            status.setRollbackOnly();
+        });
+        assertFalse(orderWriteBehind.hasPendingOrder(2002L, 2L));
+    }
+
+    @Test
+    public void testFailedInsertRestoresStock() throws InterruptedException {
+        SeckillProduct product = productRepository.save(new SeckillProduct(
+                "WB_COMPENSATE", "落库失败补偿商品", 5, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        // 模拟已扣减一件库存、客户端已收到成功，但订单号与已有订单冲突无法写入
+        product.setAvailableStock(4);
+        productRepository.save(product);
+        orderRepository.save(order("WB-DUPLICATE", 3001L, product.getId()));
+        double compensatedBefore = counter("seckill.order.write-behind.compensated");
+
+        assertTrue(orderWriteBehind.enqueueAfterCommit(order("WB-DUPLICATE", 3002L, product.getId())));
+
+        awaitTrue(() -> counter("seckill.order.write-behind.compensated") > compensatedBefore);
+        assertEquals(5, productRepository.findById(product.getId()).get().getAvailableStock());
+        assertEquals(0, counter("seckill.order.write-behind.dead-letter"));
+        assertFalse(orderWriteBehind.hasPendingOrder(3002L, product.getId()));
+    }
+
+    @Test
+    @DirtiesContext
+    public void testShutdownFlushesQueuedOrders() throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            assertTrue(orderWriteBehind.enqueueAfterCommit(order("WB-SHUTDOWN-" + i, 4000L + i, 4L)));
+        }
+        orderWriteBehind.shutdown();
+
+        assertEquals(0, orderWriteBehind.getQueueSize());
+        for (int i = 0; i < 300; i++) {
+            assertTrue(orderRepository.findByOrderNo("WB-SHUTDOWN-" + i).isPresent());
+        }
+    }
+
+    private static SeckillOrder order(String orderNo, Long userId, Long productId) {
+        return new SeckillOrder(orderNo, userId, productId, 1, new BigDecimal("1.00"),
+                SeckillOrder.OrderStatus.SUCCESS);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.SeckillService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * 商品缓存击穿测试类
+ * 冷启动和缓存过期时大量并发查询同一商品，统计实际的数据库查询次数；
+ * 关闭XFetch提前刷新，避免后台刷新计入回源次数
+ */
+@SpringBootTest(properties = {
+        "seckill.product-cache.local.ttl-ms=2000",
+        "seckill.product-cache.redis.ttl-seconds=2",
+        "seckill.product-cache.early-refresh.beta=0"
+})
+public class ProductCacheStampedeTest {
+
+    private static final int THREADS = 64;
+    private static final int REQUESTS = 2000;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @SpyBean
+    private SeckillProductRepository productRepository;
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        productRepository.save(new SeckillProduct(
+                "STAMPEDE", "缓存击穿测试商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+
+        clearInvocations(productRepository);
+        assertEquals(REQUESTS, stampede());
+        assertEquals(1, loads(), "冷启动并发查询应只回源一次");
+
+        // 等待L1和L2都过期
+        Thread.sleep(2500);
+        clearInvocations(productRepository);
+        assertEquals(REQUESTS, stampede());
+        assertEquals(1, loads(), "过期后并发查询应只回源一次");
+    }
+
+    private int loads() {
+        return (int) mockingDetails(productRepository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findByProductCode"))
+                .count();
+    }
+
+    private int stampede() throws InterruptedException {
+        AtomicInteger found = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (seckillService.getProductByCode("STAMPEDE").isPresent()) {
+                        found.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        pool.shutdown();
+        return found.get();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.ProductCache;
+import com.example.concurrency.service.ProductCodeFilter;
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.StockDeductionStrategy;
+import com.example.concurrency.service.StockLedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 商品两级缓存测试类
+ * 验证本地命中、实体变更后失效（只改库存的实体更新不失效）、库存与静态信息分开获取、批量查询，
+ * 以及不存在的商品编码不访问数据库
+ */
+@SpringBootTest
+public class ProductCacheTest {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ProductCodeFilter productCodeFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private List<StockDeductionStrategy> strategies;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testLocalHitAndInvalidationOnUpdate() {
+        SeckillProduct product = productRepository.save(new SeckillProduct(
+                "CACHE_UPDATE", "缓存测试商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+
+        double hitsBefore = localHits();
+        assertEquals("缓存测试商品", productCache.get("CACHE_UPDATE").get().getProductName());
+        assertEquals("缓存测试商品", productCache.get("CACHE_UPDATE").get().getProductName());
+        assertEquals(hitsBefore + 1, localHits());
+
+        // 通过实体修改商品名称，监听器发布变更事件后缓存失效
+        product.setProductName("缓存测试商品-改名");
+        productRepository.save(product);
+        assertEquals("缓存测试商品-改名", productCache.get("CACHE_UPDATE").get().getProductName());
+
+        assertFalse(productCache.get("CACHE_MISSING").isPresent());
+    }
+
+    @Test
+    public void testStockOnlyEntityUpdateKeepsCachedInfo() {
+        SeckillProduct product = productRepository.save(new SeckillProduct(
+                "CACHE_PESSIMISTIC", "悲观锁扣减商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        productCache.get("CACHE_PESSIMISTIC");
+
+        // 悲观锁策略通过实体修改库存和版本号，不应失效静态信息缓存
+        StockDeductionStrategy pessimistic = strategies.stream()
+                .filter(strategy -> "pessimistic".equals(strategy.getName()))
+                .findFirst().get();
+        assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> pessimistic.deduct(product, 1)));
+
+        double hitsBefore = localHits();
+        assertEquals("悲观锁扣减商品", productCache.get("CACHE_PESSIMISTIC").get().getProductName());
+        assertEquals(hitsBefore + 1, localHits());
+    }
+
+    @Test
+    public void testStockIsServedSeparatelyFromStaticInfo() {
+        productRepository.save(new SeckillProduct(
+                "CACHE_STOCK", "库存缓存测试商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+
+        assertEquals(10, seckillService.getProductByCode("CACHE_STOCK").get().getAvailableStock());
+
+        // 账本预热后库存直接读账本，静态信息仍命中缓存
+        stockLedger.warmUp("CACHE_STOCK", 10);
+        assertTrue(stockLedger.tryReserve("CACHE_STOCK", 3));
+        SeckillProduct cached = seckillService.getProductByCode("CACHE_STOCK").get();
+        assertEquals(7, cached.getAvailableStock());
+        assertNotNull(cached.getVersion());
+        assertNotNull(cached.getUpdatedAt());
+        stockLedger.evict("CACHE_STOCK");
+    }
+
+    @Test
+    public void testUnknownCodesRejectedInMemory() {
+        assertFalse(productCodeFilter.mightContain("CACHE_SCANNER_404"));
+        assertFalse(seckillService.getProductByCode("CACHE_SCANNER_404").isPresent());
+        assertFalse(seckillService.doSeckill(1L, "CACHE_SCANNER_404", 1).isSuccess());
+
+        // 新增商品提交后立即可查
+        productRepository.save(new SeckillProduct(
+                "CACHE_NEW", "新增商品", 10, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        assertTrue(productCodeFilter.mightContain("CACHE_NEW"));
+        assertTrue(seckillService.getProductByCode("CACHE_NEW").isPresent());
+    }
+
+    @Test
+    public void testBatchLookupKeepsRequestOrder() {
+        for (String code : Arrays.asList("BATCH_A", "BATCH_B", "BATCH_C")) {
+            productRepository.save(new SeckillProduct(
+                    code, "批量查询商品" + code, 10, 100, 200,
+                    LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        }
+        // 预先缓存一个，其余走数据库批量查询
+        productCache.get("BATCH_B");
+        stockLedger.warmUp("BATCH_C", 4);
+
+        List<SeckillProduct> products = seckillService.getProductsByCodes(
+                Arrays.asList("BATCH_C", "BATCH_404", "BATCH_A", "BATCH_B", "BATCH_C"));
+        assertEquals(Arrays.asList("BATCH_C", "BATCH_A", "BATCH_B"),
+                products.stream().map(SeckillProduct::getProductCode).collect(Collectors.toList()));
+        assertEquals(4, products.get(0).getAvailableStock());
+        assertEquals(10, products.get(1).getAvailableStock());
+        stockLedger.evict("BATCH_C");
+
+        List<String> tooMany = IntStream.range(0, 101).mapToObj(i -> "BATCH_" + i).collect(Collectors.toList());
+        assertThrows(IllegalArgumentException.class, () -> seckillService.getProductsByCodes(tooMany));
+    }
+
+    private double localHits() {
+        return meterRegistry.get("seckill.product.cache.requests")
+                .tag("level", "local").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.RedisCircuitBreaker;
+import com.example.concurrency.service.RedisCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis熔断器测试类
+ * 验证失败率熔断、连接失败立即熔断、探测成功后半开试探再关闭，以及半开期间业务调用不访问Redis
+ */
+public class RedisCircuitBreakerTest {
+
+    private final AtomicBoolean healthy = new AtomicBoolean(true);
+    private final AtomicInteger pings = new AtomicInteger();
+    private RedisCircuitBreaker breaker;
+
+    @AfterEach
+    public void tearDown() {
+        if (breaker != null) {
+            breaker.shutdown();
+        }
+    }
+
+    @Test
+    public void testProbeClosesThroughHalfOpenTrials() {
+        AtomicBoolean allowedWhileHalfOpen = new AtomicBoolean();
+        breaker = create(() -> {
+            pings.incrementAndGet();
+            if (breaker.getState() == State.HALF_OPEN && breaker.allowRequest()) {
+                allowedWhileHalfOpen.set(true);
+            }
+            return healthy.get() ? "PONG" : null;
+        });
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.probe();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        // 1次探测 + 3次半开试探
+        assertEquals(4, pings.get());
+        assertFalse(allowedWhileHalfOpen.get(), "半开期间业务调用不应访问Redis");
+    }
+
+    @Test
+    public void testFailedTrialReopens() {
+        breaker = create(() -> pings.incrementAndGet() <= 2 ? "PONG" : null);
+
+        breaker.probe();
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(3, pings.get());
+    }
+
+    @Test
+    public void testFailureRateOpensClosedBreaker() {
+        breaker = create(() -> healthy.get() ? "PONG" : null);
+        breaker.probe();
+        assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        breaker.recordFailure(new IllegalStateException("slow"));
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.recordFailure(new IllegalStateException("slow"));
+        // 4次调用失败率50%，达到阈值
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testConnectionFailureAndFailedProbeOpenImmediately() {
+        breaker = create(() -> healthy.get() ? "PONG" : null);
+        breaker.probe();
+        breaker.recordFailure(new RedisConnectionFailureException("refused"));
+        assertEquals(State.OPEN, breaker.getState());
+
+        breaker.probe();
+        assertEquals(State.CLOSED, breaker.getState());
+        healthy.set(false);
+        breaker.probe();
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    private static RedisCircuitBreaker create(Callable<String> healthCheck) {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(), healthCheck, 10, 4, 50, 3, 500);
+    }
+}
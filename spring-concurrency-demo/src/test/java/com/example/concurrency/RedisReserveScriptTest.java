@@ -0,0 +1,85 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.RedisService;
+import com.example.concurrency.service.RedisService.ReserveResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis库存预占脚本测试类
+ * 在内存降级模式下验证预占、去重和取消的原子性，以及启动时按数据库库存重置残留计数器
+ */
+public class RedisReserveScriptTest {
+
+    private final RedisService redisService = new RedisService();
+
+    @Test
+    public void testReserveRequiresInitializedStock() {
+        assertEquals(ReserveResult.NOT_INITIALIZED, redisService.reserveStock("SCRIPT_INIT", 1L, 1));
+        assertTrue(redisService.initStock("SCRIPT_INIT", 1));
+        assertFalse(redisService.initStock("SCRIPT_INIT", 5));
+
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_INIT", 1L, 1));
+        assertEquals(ReserveResult.ALREADY_BOUGHT, redisService.reserveStock("SCRIPT_INIT", 1L, 1));
+        assertEquals(ReserveResult.SOLD_OUT, redisService.reserveStock("SCRIPT_INIT", 2L, 1));
+    }
+
+    @Test
+    public void testCancelIsIdempotent() {
+        redisService.initStock("SCRIPT_CANCEL", 1);
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_CANCEL", 1L, 1));
+
+        assertTrue(redisService.cancelReservation("SCRIPT_CANCEL", 1L, 1));
+        assertFalse(redisService.cancelReservation("SCRIPT_CANCEL", 1L, 1));
+        assertEquals("1", redisService.get(RedisService.stockKey("SCRIPT_CANCEL")));
+
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_CANCEL", 2L, 1));
+    }
+
+    @Test
+    public void testResetOverridesLeftoverStockAndBuyers() {
+        // 上次运行残留：已售罄且用户1已购买
+        redisService.initStock("SCRIPT_RESET", 1);
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_RESET", 1L, 1));
+        assertEquals(ReserveResult.SOLD_OUT, redisService.reserveStock("SCRIPT_RESET", 2L, 1));
+
+        redisService.resetStock("SCRIPT_RESET", 3);
+        assertEquals("3", redisService.get(RedisService.stockKey("SCRIPT_RESET")));
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_RESET", 1L, 1));
+        assertEquals(ReserveResult.RESERVED, redisService.reserveStock("SCRIPT_RESET", 2L, 1));
+    }
+
+    @Test
+    public void testConcurrentReserveDedupesUsersAndNeverOversells() throws Exception {
+        int stock = 20;
+        int users = 100;
+        int attemptsPerUser = 5;
+        redisService.initStock("SCRIPT_RACE", stock);
+
+        Set<Long> winners = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch done = new CountDownLatch(users * attemptsPerUser);
+        for (int i = 0; i < users * attemptsPerUser; i++) {
+            long userId = i % users;
+            pool.execute(() -> {
+                if (redisService.reserveStock("SCRIPT_RACE", userId, 1) == ReserveResult.RESERVED) {
+                    assertTrue(winners.add(userId), "用户重复预占: " + userId);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(stock, winners.size());
+        assertEquals("0", redisService.get(RedisService.stockKey("SCRIPT_RACE")));
+    }
+}
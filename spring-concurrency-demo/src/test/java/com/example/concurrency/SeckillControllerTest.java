@@ -1,13 +1,17 @@
 package com.example.concurrency;
 
 import com.example.concurrency.controller.SeckillController;
+import com.example.concurrency.controller.SeckillResponses;
+import com.example.concurrency.service.SeckillError;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -56,4 +60,42 @@ public class SeckillControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("SUCCESS"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testGetProductsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/v1/seckill/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/v1/seckill/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+    
+    @Test
+    public void testSeckillOrder() throws Exception {
+        mockMvc.perform(post("/api/v1/seckill/order")
+                .param("userId", "900001")
+                .param("productCode", "IPHONE15PRO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        
+        mockMvc.perform(post("/api/v1/seckill/order")
+                .param("userId", "900001")
+                .param("productCode", "IPHONE15PRO"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+    
+    @Test
+    public void testErrorStatusMapping() {
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, SeckillResponses.status(SeckillError.QUEUE_FULL.result()));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, SeckillResponses.status(SeckillError.TRY_LATER.result()));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, SeckillResponses.status(SeckillError.STOCK_CONFLICT.result()));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, SeckillResponses.status(SeckillError.SYSTEM_ERROR.result()));
+        assertEquals(HttpStatus.BAD_REQUEST, SeckillResponses.status(SeckillError.SOLD_OUT.result()));
+        assertEquals(HttpStatus.BAD_REQUEST, SeckillResponses.status(SeckillError.ALREADY_BOUGHT.result()));
+    }
+}
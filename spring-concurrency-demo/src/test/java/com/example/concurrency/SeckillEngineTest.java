@@ -0,0 +1,117 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.SeckillEngine;
+import com.example.concurrency.service.SeckillError;
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import com.example.concurrency.service.SoldOutGate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 环形缓冲下单引擎测试类
+ * 验证并发下单不超卖、订单数与库存一致、重复购买拦截、补货后引擎重新读取库存，
+ * 以及未经引擎判定的商品归还时不清除售罄标记
+ */
+@SpringBootTest(properties = "seckill.engine.mode=ring")
+public class SeckillEngineTest {
+
+    private static final int STOCK = 100;
+    private static final int REQUESTS = 2000;
+
+    @Value("${seckill.engine.shards:4}")
+    private int shards;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillEngine seckillEngine;
+
+    @Autowired
+    private SoldOutGate soldOutGate;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Test
+    public void testConcurrentOrdersDoNotOversell() throws Exception {
+        SeckillProduct product = saveProduct("ENGINE_CONCURRENT", STOCK);
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        List<Future<SeckillResult>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            long userId = 940_000L + i;
+            results.add(pool.submit(() -> seckillService.doSeckill(userId, "ENGINE_CONCURRENT", 1)));
+        }
+        int sold = 0;
+        for (Future<SeckillResult> result : results) {
+            if (result.get(60, TimeUnit.SECONDS).isSuccess()) {
+                sold++;
+            }
+        }
+        pool.shutdown();
+        assertEquals(STOCK, sold);
+        assertEquals(0, productRepository.findByProductCode("ENGINE_CONCURRENT").get().getAvailableStock());
+        assertEquals(STOCK, orderRepository.countSuccessOrders(product.getId()).intValue());
+    }
+
+    @Test
+    public void testDuplicateAndRestock() {
+        saveProduct("ENGINE_RESTOCK", 1);
+        assertTrue(seckillService.doSeckill(950001L, "ENGINE_RESTOCK", 1).isSuccess());
+        assertEquals(SeckillError.SOLD_OUT, seckillService.doSeckill(950002L, "ENGINE_RESTOCK", 1).getError());
+
+        // 补货后引擎重新读取数据库库存，已购用户仍被拦截
+        assertTrue(seckillService.restoreStock("ENGINE_RESTOCK", 1));
+        assertEquals(SeckillError.ALREADY_BOUGHT, seckillService.doSeckill(950001L, "ENGINE_RESTOCK", 1).getError());
+        assertTrue(seckillService.doSeckill(950002L, "ENGINE_RESTOCK", 1).isSuccess());
+        assertEquals(0, productRepository.findByProductCode("ENGINE_RESTOCK").get().getAvailableStock());
+    }
+
+    @Test
+    public void testReleaseOfUnknownProductKeepsSoldOutMark() {
+        soldOutGate.markSoldOut("ENGINE_UNKNOWN", soldOutGate.version("ENGINE_UNKNOWN"));
+        seckillEngine.release("ENGINE_UNKNOWN", 960001L, 1);
+
+        // 同一分片的事件按发布顺序处理，后一次下单返回时归还事件已处理完
+        String barrier = sameShardCode("ENGINE_UNKNOWN");
+        saveProduct(barrier, 1);
+        assertTrue(seckillService.doSeckill(960002L, barrier, 1).isSuccess());
+
+        assertTrue(soldOutGate.isSoldOut("ENGINE_UNKNOWN"));
+    }
+
+    private String sameShardCode(String productCode) {
+        int shard = Math.floorMod(productCode.hashCode(), shards);
+        for (int i = 0; ; i++) {
+            String candidate = "ENGINE_BARRIER_" + i;
+            if (Math.floorMod(candidate.hashCode(), shards) == shard) {
+                return candidate;
+            }
+        }
+    }
+
+    private SeckillProduct saveProduct(String productCode, int stock) {
+        return productRepository.save(new SeckillProduct(
+                productCode, "下单引擎测试商品", stock, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+}
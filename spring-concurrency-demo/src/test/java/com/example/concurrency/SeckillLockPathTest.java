@@ -0,0 +1,109 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillOrderRepository;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.LockManager;
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import com.example.concurrency.service.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户锁下单路径测试类
+ * 关闭Redis预占脚本后由 (商品, 用户) 锁和Redis租约去重：同一用户并发下单只成功一次，
+ * 不同用户抢购不超卖，订单数、数据库库存和库存账本保持一致
+ */
+@SpringBootTest(properties = {
+        "seckill.redis.reserve-script.enabled=false",
+        "seckill.lock.cluster-mode=true"
+})
+public class SeckillLockPathTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private LockManager lockManager;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private SeckillOrderRepository orderRepository;
+
+    @Test
+    public void testSameUserConcurrentOrdersSucceedOnce() throws InterruptedException {
+        SeckillProduct product = saveProduct("LOCK_SAME_USER", 10);
+        assertTrue(lockManager.isClusterMode());
+
+        AtomicInteger success = runConcurrently(64, i -> seckillService.doSeckill(7001L, "LOCK_SAME_USER", 1));
+
+        assertEquals(1, success.get());
+        assertEquals(1, orderRepository.findUserSuccessOrders(7001L, product.getId()).size());
+        assertEquals(9, productRepository.findById(product.getId()).get().getAvailableStock());
+    }
+
+    @Test
+    public void testDistinctUsersNeverOversell() throws InterruptedException {
+        SeckillProduct product = saveProduct("LOCK_OVERSELL", 20);
+
+        AtomicInteger success = runConcurrently(200, i -> seckillService.doSeckill(8000L + i, "LOCK_OVERSELL", 1));
+
+        // 乐观锁冲突重试耗尽的请求归还账本预占，订单、数据库库存和账本始终一致
+        int remaining = productRepository.findById(product.getId()).get().getAvailableStock();
+        assertTrue(remaining >= 0, "超卖");
+        assertEquals(success.get(), orderRepository.findByProductId(product.getId()).size());
+        assertEquals(20, success.get() + remaining);
+        assertEquals(remaining, stockLedger.available("LOCK_OVERSELL"));
+    }
+
+    private SeckillProduct saveProduct(String code, int stock) {
+        return productRepository.save(new SeckillProduct(code, "用户锁下单商品", stock, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+    }
+
+    private static AtomicInteger runConcurrently(int requests, IntFunction<SeckillResult> request)
+            throws InterruptedException {
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (request.apply(index).isSuccess()) {
+                        success.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        pool.shutdown();
+        return success;
+    }
+}
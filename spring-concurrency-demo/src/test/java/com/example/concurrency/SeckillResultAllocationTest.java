@@ -0,0 +1,109 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillOrder;
+import com.example.concurrency.service.SeckillError;
+import com.example.concurrency.service.SeckillService.OrderReceipt;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 下单响应编码测试类
+ * 校验精简结果的输出格式，并用线程分配字节数对比旧格式（实体反射序列化、每次拼接失败信息）的每请求分配量
+ */
+public class SeckillResultAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 50_000;
+    private static final long MAX_BYTES_PER_REQUEST = 1024;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SeckillOrder order = new SeckillOrder("2024010112000012345", 10001L, 1L, 1,
+            new BigDecimal("5999.00"), SeckillOrder.OrderStatus.SUCCESS);
+
+    @Test
+    public void testResponseFormat() throws Exception {
+        JsonNode success = objectMapper.readTree(objectMapper.writeValueAsBytes(
+                SeckillResult.success(new OrderReceipt(order))));
+        assertTrue(success.get("success").asBoolean());
+        assertEquals("OK", success.get("code").asText());
+        assertEquals("2024010112000012345", success.get("data").get("orderNo").asText());
+        assertEquals(5999.00, success.get("data").get("totalAmount").asDouble());
+
+        JsonNode failed = objectMapper.readTree(objectMapper.writeValueAsBytes(SeckillError.SOLD_OUT.result()));
+        assertFalse(failed.get("success").asBoolean());
+        assertEquals("SOLD_OUT", failed.get("code").asText());
+        assertEquals("商品已售罄", failed.get("message").asText());
+        assertTrue(failed.get("data").isNull());
+    }
+
+    @Test
+    public void testAllocationPerRequest() throws Exception {
+        long legacySuccess = bytesPerOp(() -> legacyResult(true, order, "success"));
+        long compactSuccess = bytesPerOp(() -> SeckillResult.success(new OrderReceipt(order)));
+        long legacyFailure = bytesPerOp(() -> legacyResult(false, null, "系统异常：" + "Lock wait timeout"));
+        long compactFailure = bytesPerOp(() -> SeckillError.SYSTEM_ERROR.result());
+
+        // 精简格式每请求分配不超过旧格式的3/4，且不超过1KB
+        assertTrue(compactSuccess * 4 <= legacySuccess * 3,
+                "成功响应每请求分配: 旧格式 " + legacySuccess + " B, 精简格式 " + compactSuccess + " B");
+        assertTrue(compactFailure * 4 <= legacyFailure * 3,
+                "失败响应每请求分配: 旧格式 " + legacyFailure + " B, 预分配 " + compactFailure + " B");
+        assertTrue(compactSuccess <= MAX_BYTES_PER_REQUEST, "成功响应每请求分配 " + compactSuccess + " B");
+        assertTrue(compactFailure <= MAX_BYTES_PER_REQUEST, "失败响应每请求分配 " + compactFailure + " B");
+    }
+
+    /**
+     * 旧响应结构：success/message/data，data为完整订单实体
+     */
+    private static Map<String, Object> legacyResult(boolean success, Object data, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", success);
+        result.put("message", message);
+        result.put("data", data);
+        return result;
+    }
+
+    /**
+     * 构建结果并序列化到丢弃输出流，返回当前线程平均每次分配的字节数
+     */
+    private long bytesPerOp(ResultFactory factory) throws IOException {
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        for (int i = 0; i < WARMUP; i++) {
+            objectMapper.writeValue(sink, factory.create());
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            objectMapper.writeValue(sink, factory.create());
+        }
+        return (allocatedBytes() - before) / ITERATIONS;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface ResultFactory {
+        Object create();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.SoldOutGate;
+import com.example.concurrency.service.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 售罄标记测试类
+ * 验证预占失败后、标记前发生的库存归还会使标记作废，并发预占和归还结束后有库存的商品不会停留在售罄状态
+ */
+@SpringBootTest
+public class SoldOutGateTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 2000;
+
+    @Autowired
+    private SoldOutGate soldOutGate;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Test
+    public void testResetBeforeMarkCancelsMark() {
+        String code = "GATE_LOST_WAKEUP";
+        stockLedger.warmUp(code, 1);
+
+        // T2 占用最后一件
+        assertTrue(stockLedger.tryReserve(code, 1));
+        // T1 预占失败，尚未标记
+        long observed = soldOutGate.version(code);
+        assertFalse(stockLedger.tryReserve(code, 1));
+        // T2 下单失败归还库存并清除标记
+        stockLedger.release(code, 1);
+        soldOutGate.reset(code);
+        // T1 随后标记：版本号已变化，标记作废
+        assertFalse(soldOutGate.markSoldOut(code, observed));
+        assertFalse(soldOutGate.isSoldOut(code));
+
+        // 没有归还时正常标记，reset 后清除
+        long current = soldOutGate.version(code);
+        assertTrue(stockLedger.tryReserve(code, 1));
+        assertTrue(soldOutGate.markSoldOut(code, current));
+        assertTrue(soldOutGate.isSoldOut(code));
+        stockLedger.release(code, 1);
+        soldOutGate.reset(code);
+        assertFalse(soldOutGate.isSoldOut(code));
+    }
+
+    @Test
+    public void testConcurrentReserveAndReleaseLeavesGateOpen() throws Exception {
+        String code = "GATE_CONCURRENT";
+        stockLedger.warmUp(code, 1);
+
+        // 每个请求都预占后立即归还，最后一件库存始终会回来
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(ROUNDS);
+        for (int i = 0; i < ROUNDS; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    long observed = soldOutGate.version(code);
+                    if (stockLedger.tryReserve(code, 1)) {
+                        stockLedger.release(code, 1);
+                        soldOutGate.reset(code);
+                    } else {
+                        soldOutGate.markSoldOut(code, observed);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1, stockLedger.available(code));
+        assertFalse(soldOutGate.isSoldOut(code), "归还库存后商品仍被标记为售罄");
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.concurrency;
+
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.SeckillError;
+import com.example.concurrency.service.SeckillService;
+import com.example.concurrency.service.SeckillService.SeckillResult;
+import com.example.concurrency.service.StockDeductionStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 库存扣减策略测试类
+ * 在相同并发下校验各策略不超卖：原子更新、合并提交和悲观锁在库存充足时全部成功；
+ * 乐观锁只会因版本冲突失败，剩余库存仍可正常扣减，冲突后由下单服务在新事务中重试。
+ * 吞吐量和耗时对比见JMH基准 ExecuteSeckillBenchmark
+ */
+@SpringBootTest
+public class StockDeductionStrategyTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 800;
+
+    @Autowired
+    private List<StockDeductionStrategy> strategies;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testStrategiesUnderContention() throws Exception {
+        for (StockDeductionStrategy strategy : strategies) {
+            // 库存与请求数相等，理想情况下所有请求都应成功
+            SeckillProduct product = productRepository.save(new SeckillProduct(
+                    "STRATEGY_" + strategy.getName().toUpperCase(), "扣减策略压测商品", REQUESTS, 100, 200,
+                    LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+
+            AtomicInteger sold = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        Boolean deducted = transactionTemplate.execute(status -> strategy.deduct(
+                                productRepository.findById(product.getId()).get(), 1));
+                        if (Boolean.TRUE.equals(deducted)) {
+                            sold.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            start.countDown();
+            assertTrue(done.await(120, TimeUnit.SECONDS));
+            pool.shutdown();
+
+            int remaining = productRepository.findById(product.getId()).get().getAvailableStock();
+            assertTrue(remaining >= 0, strategy.getName() + " 超卖");
+            assertEquals(REQUESTS, sold.get() + remaining, strategy.getName() + " 库存不一致");
+
+            if ("optimistic".equals(strategy.getName())) {
+                if (remaining > 0) {
+                    // 失败只来自版本冲突，没有竞争时剩余库存应能扣减
+                    Boolean deducted = transactionTemplate.execute(status -> strategy.deduct(
+                            productRepository.findById(product.getId()).get(), 1));
+                    assertEquals(Boolean.TRUE, deducted, "乐观锁策略在无竞争时扣减失败");
+                }
+            } else {
+                assertEquals(REQUESTS, sold.get(), strategy.getName() + " 库存充足时仍有请求失败");
+            }
+            productRepository.delete(product);
+        }
+    }
+
+    @Test
+    public void testOptimisticConflictRetriesInNewTransaction() {
+        SeckillProduct product = productRepository.save(new SeckillProduct(
+                "STRATEGY_OPTIMISTIC_RETRY", "乐观锁重试商品", 5, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        // 过期版本号使首次扣减冲突
+        SeckillProduct stale = productRepository.findById(product.getId()).get();
+        stale.setVersion(stale.getVersion() - 1);
+
+        // 调用方已开启事务时不在其中退避重试，直接返回冲突且不扣减
+        SeckillResult inCaller = transactionTemplate.execute(
+                status -> seckillService.executeSeckill(9101L, stale, 1));
+        assertEquals(SeckillError.STOCK_CONFLICT, inCaller.getError());
+        assertEquals(5, productRepository.findById(product.getId()).get().getAvailableStock());
+
+        // 无外部事务时结束冲突的事务，重新读取商品后在新事务中扣减成功
+        assertTrue(seckillService.executeSeckill(9102L, stale, 1).isSuccess());
+        assertEquals(4, productRepository.findById(product.getId()).get().getAvailableStock());
+    }
+
+    @Test
+    public void testOptimisticRetryRereadsVersionUnderOpenSessionInView() {
+        SeckillProduct product = productRepository.save(new SeckillProduct(
+                "STRATEGY_OPTIMISTIC_OSIV", "乐观锁重试商品", 5, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        // 模拟 open-in-view：请求线程绑定持久化上下文，商品实体在整个请求中保持托管
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            SeckillProduct loaded = productRepository.findById(product.getId()).get();
+            // 其他请求在读取之后扣减过库存，版本号已推进
+            jdbcTemplate.update("UPDATE seckill_products SET version = version + 1 WHERE id = ?", product.getId());
+
+            assertTrue(seckillService.executeSeckill(9103L, loaded, 1).isSuccess());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+        assertEquals(4, productRepository.findById(product.getId()).get().getAvailableStock());
+    }
+}
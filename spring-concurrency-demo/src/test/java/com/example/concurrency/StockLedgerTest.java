@@ -0,0 +1,84 @@
+package com.example.concurrency;
+
+import com.example.concurrency.service.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 库存账本测试类
+ * 验证并发预占不超卖、跨槽位预占全部成功或全部回滚；吞吐量对比见JMH基准 StockLedgerBenchmark
+ */
+@SpringBootTest
+public class StockLedgerTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 4000;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Test
+    public void testConcurrentReserveNeverOversells() throws Exception {
+        stockLedger.warmUp("LEDGER_OVERSELL", STOCK);
+        AtomicInteger reserved = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (stockLedger.tryReserve("LEDGER_OVERSELL", 1)) {
+                reserved.incrementAndGet();
+            }
+        });
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(0, stockLedger.available("LEDGER_OVERSELL"));
+
+        stockLedger.release("LEDGER_OVERSELL", 3);
+        assertEquals(3, stockLedger.available("LEDGER_OVERSELL"));
+    }
+
+    @Test
+    public void testFragmentedReserveIsAllOrNothing() {
+        // 5个库存分散在8个槽位中，每个槽位最多1个
+        stockLedger.warmUp("LEDGER_FRAGMENTED", 5);
+
+        assertTrue(stockLedger.tryReserve("LEDGER_FRAGMENTED", 3));
+        assertEquals(2, stockLedger.available("LEDGER_FRAGMENTED"));
+
+        // 跨槽位凑不齐时已扣减的部分要归还
+        assertFalse(stockLedger.tryReserve("LEDGER_FRAGMENTED", 3));
+        assertEquals(2, stockLedger.available("LEDGER_FRAGMENTED"));
+
+        assertFalse(stockLedger.tryReserve("LEDGER_UNKNOWN", 1));
+        assertEquals(-1, stockLedger.available("LEDGER_UNKNOWN"));
+    }
+
+    private void runConcurrently(Runnable request) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    request.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.concurrency;
+
+import com.example.concurrency.config.BoundedDataSource;
+import com.example.concurrency.config.VirtualThreads;
+import com.example.concurrency.entity.SeckillProduct;
+import com.example.concurrency.repository.SeckillProductRepository;
+import com.example.concurrency.service.SeckillService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程执行模式测试类
+ * 验证JDBC许可上限、并发下单后许可全部归还；JDK 21以下验证自动退回平台线程池
+ */
+@SpringBootTest(properties = {
+        "seckill.threads.mode=virtual",
+        "seckill.threads.jdbc-permits=4",
+        "seckill.threads.permit-wait-ms=200"
+})
+public class VirtualThreadModeTest {
+
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("seckillExecutor")
+    private Executor seckillExecutor;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testJdbcPermitsBoundConnections() throws Exception {
+        assertTrue(dataSource instanceof BoundedDataSource);
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                held.add(dataSource.getConnection());
+            }
+            assertEquals(0, jdbcPermits());
+            assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertEquals(4, jdbcPermits());
+    }
+
+    @Test
+    public void testConcurrentOrdersReleasePermits() throws Exception {
+        if (VirtualThreads.isSupported()) {
+            assertFalse(seckillExecutor instanceof ThreadPoolTaskExecutor);
+        } else {
+            assertTrue(seckillExecutor instanceof ThreadPoolTaskExecutor);
+        }
+
+        productRepository.save(new SeckillProduct(
+                "VIRTUAL_MODE", "虚拟线程测试商品", 50, 100, 200,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1)));
+        List<CompletableFuture<SeckillService.SeckillResult>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            long userId = 700_000L + i;
+            results.add(CompletableFuture.supplyAsync(
+                    () -> seckillService.doSeckill(userId, "VIRTUAL_MODE", 1), seckillExecutor));
+        }
+        int sold = 0;
+        for (CompletableFuture<SeckillService.SeckillResult> result : results) {
+            try {
+                if (result.get(60, TimeUnit.SECONDS).isSuccess()) {
+                    sold++;
+                }
+            } catch (ExecutionException e) {
+                // 许可等待超时快速失败
+            }
+        }
+        assertTrue(sold > 0 && sold <= 50);
+        assertEquals(50 - sold, productRepository.findByProductCode("VIRTUAL_MODE").get().getAvailableStock());
+        assertEquals(4, jdbcPermits());
+    }
+
+    private double jdbcPermits() {
+        return meterRegistry.get("seckill.threads.permits.available").tag("resource", "jdbc").gauge().value();
+    }
+}